@@ -0,0 +1,167 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.cli;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import ch.epfl.flamemaker.flame.ComputePool;
+
+/**
+ * Renders a list of jobs without GUI, in a single JVM:
+ * <pre>java ch.epfl.flamemaker.cli.BatchRenderer [-j concurrentJobs] jobList</pre>
+ * The job list has one {@link RenderJob} per line, blank lines and lines starting with # being ignored,
+ * and is read from the standard input if its name is "-".
+ * At most <strong>concurrentJobs</strong> jobs (1 by default) run at the same time,
+ * all of them computing and writing in the shared pool. The chains of the pool are shared by the jobs 
+ * running at the same time, so that their accumulators don't need more memory than a single job.
+ */
+public final class BatchRenderer {
+	private BatchRenderer() {}
+	
+	/**
+	 * Renders the jobs of a job list
+	 * @param args the options and the name of the job list
+	 */
+	public static void main(String[] args) {
+		int concurrentJobs = 1;
+		String jobList = null;
+		
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if(args[i].equals("-j") && i + 1 < args.length) {
+					concurrentJobs = Integer.parseInt(args[++i]);
+				}
+				else if(jobList == null) {
+					jobList = args[i];
+				}
+				else {
+					throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+				}
+			}
+			
+			if(jobList == null || concurrentJobs <= 0) {
+				throw new IllegalArgumentException("Usage: BatchRenderer [-j concurrentJobs] jobList");
+			}
+		}
+		catch(IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+		
+		List<RenderJob> jobs;
+		try {
+			jobs = readJobs(jobList);
+		}
+		catch(IOException | IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+			return;
+		}
+		
+		int failures = render(jobs, concurrentJobs, ComputePool.shared());
+		System.exit(failures == 0 ? 0 : 1);
+	}
+	
+	/**
+	 * Reads and parses a job list
+	 * @param name the name of the file, or "-" for the standard input
+	 * @return the jobs of the list
+	 * @throws IOException if the file or a scene file of a job can't be read
+	 * @throws IllegalArgumentException if a line isn't a valid job
+	 */
+	public static List<RenderJob> readJobs(String name) throws IOException {
+		InputStream in = name.equals("-") ? System.in : new FileInputStream(name);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		List<RenderJob> jobs = new ArrayList<RenderJob>();
+		
+		try {
+			String line;
+			int number = 0;
+			while((line = reader.readLine()) != null) {
+				number++;
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				
+				try {
+					jobs.add(RenderJob.parse(line));
+				}
+				catch(IllegalArgumentException e) {
+					throw new IllegalArgumentException(name + ":" + number + ": " + e.getMessage(), e);
+				}
+				catch(IOException e) {
+					throw new IOException(name + ":" + number + ": " + e.getMessage(), e);
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+		
+		return jobs;
+	}
+	
+	/**
+	 * Renders jobs, printing the time spent by each of them. 
+	 * Each job runs parallelism / concurrentJobs chains, at least one, 
+	 * so that the concurrent jobs hold as many accumulator builders as a single job would.
+	 * @param jobs the jobs to render
+	 * @param concurrentJobs the largest number of jobs running at the same time
+	 * @param pool the pool computing and writing the jobs
+	 * @return the number of failed jobs
+	 */
+	public static int render(List<RenderJob> jobs, int concurrentJobs, final ForkJoinPool pool) {
+		ExecutorService executor = Executors.newFixedThreadPool(concurrentJobs);
+		final int chains = Math.max(1, pool.getParallelism() / concurrentJobs);
+		List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+		
+		for (final RenderJob job : jobs) {
+			results.add(executor.submit(new Callable<long[]>() {
+				@Override
+				public long[] call() throws IOException {
+					return job.render(pool, chains);
+				}
+			}));
+		}
+		executor.shutdown();
+		
+		int failures = 0;
+		for (int i = 0; i < jobs.size(); i++) {
+			RenderJob job = jobs.get(i);
+			String prefix = "[" + (i + 1) + "/" + jobs.size() + "] " + job.source() + " -> " + job.output() + ": ";
+			
+			try {
+				long[] times = results.get(i).get();
+				System.out.println(prefix + "computed in " + times[0] / 1000000 + " ms, written in " + times[1] / 1000000 + " ms");
+			}
+			catch(ExecutionException e) {
+				failures++;
+				System.out.println(prefix + "failed: " + e.getCause());
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				executor.shutdownNow();
+				return failures + jobs.size() - i;
+			}
+		}
+		
+		return failures;
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.cli;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import ch.epfl.flamemaker.flame.ComputePool;
+import ch.epfl.flamemaker.io.*;
+
+/**
+ * Converts flam3 files into a scene library, without GUI:
+ * <pre>java ch.epfl.flamemaker.cli.Flam3Converter library.scene file.flame... directory...</pre>
+ * The files of a directory whose extension is .flame are converted, and all the files are imported
+ * in parallel in the shared pool, so the scenes of the library are grouped by file in any order.
+ * The variations and features that were ignored are counted and printed at the end.
+ */
+public final class Flam3Converter {
+	private Flam3Converter() {}
+	
+	/**
+	 * Converts flam3 files into a scene library
+	 * @param args the name of the library, followed by the flam3 files and directories
+	 */
+	public static void main(String[] args) {
+		if(args.length < 2) {
+			System.err.println("Usage: Flam3Converter library.scene file.flame... directory...");
+			System.exit(2);
+		}
+		
+		List<File> files = new ArrayList<File>();
+		for (int i = 1; i < args.length; i++) {
+			File f = new File(args[i]);
+			if(f.isDirectory()) {
+				File[] children = f.listFiles();
+				Arrays.sort(children);
+				for (File child : children) {
+					if(child.isFile() && child.getName().toLowerCase().endsWith(".flame")) {
+						files.add(child);
+					}
+				}
+			}
+			else {
+				files.add(f);
+			}
+		}
+		
+		try {
+			FileChannel library = new FileOutputStream(args[0]).getChannel();
+			try {
+				int failures = convert(files, library);
+				System.exit(failures == 0 ? 0 : 1);
+			}
+			finally {
+				library.close();
+			}
+		}
+		catch(IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+	}
+	
+	/**
+	 * Imports flam3 files and appends their flames to a scene library,
+	 * printing the errors and a summary of the ignored variations and features
+	 * @param files the flam3 files
+	 * @param library the channel of the library
+	 * @return the number of files that couldn't be converted
+	 */
+	public static int convert(List<File> files, final FileChannel library) {
+		final Map<String, Integer> unsupportedCounts = new TreeMap<String, Integer>();
+		final int[] flameCount = {0};
+		
+		int failures = Flam3Importer.importAll(files, new Flam3Importer.Handler() {
+			
+			@Override
+			public void flame(File file, String name, Scene scene, Set<String> unsupported) {
+				synchronized (library) {
+					try {
+						SceneFormat.write(scene, library);
+					}
+					catch(IOException e) {
+						throw new IllegalArgumentException("Can't write the library: " + e.getMessage(), e);
+					}
+					
+					flameCount[0]++;
+					for (String u : unsupported) {
+						Integer count = unsupportedCounts.get(u);
+						unsupportedCounts.put(u, count == null ? 1 : count + 1);
+					}
+				}
+			}
+			
+			@Override
+			public void failed(File file, Exception e) {
+				System.err.println(e.getMessage());
+			}
+		}, ComputePool.shared());
+		
+		System.out.println(flameCount[0] + " flames converted from " + (files.size() - failures) + " files, " + failures + " failed");
+		for (Map.Entry<String, Integer> e : unsupportedCounts.entrySet()) {
+			System.out.println("  ignored " + e.getKey() + " in " + e.getValue() + " flames");
+		}
+		
+		return failures;
+	}
+}
@@ -0,0 +1,387 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import ch.epfl.flamemaker.color.*;
+import ch.epfl.flamemaker.flame.*;
+import ch.epfl.flamemaker.geometry2d.*;
+import ch.epfl.flamemaker.ifs.*;
+import ch.epfl.flamemaker.io.*;
+import ch.epfl.flamemaker.output.*;
+import ch.epfl.flamemaker.random.Xoshiro256Random;
+
+/**
+ * A fractal to render in an image file, described by a line of a job list:
+ * <pre>source centerX centerY frameWidth frameHeight width height density palette output [cells]</pre>
+ * <ul>
+ * <li><strong>source</strong>: a preset flame (shark-fin, turbulence, triangle), a preset IFS
+ * prefixed by "ifs:" (sierpinski-triangle, fern, sierpinski-carpet, dragon, tree),
+ * or a scene file (.scene or .txt, see {@link Scene})</li>
+ * <li><strong>palette</strong>: rgb, random:n for n random colors,
+ * or a list of hexadecimal colors separated by commas (ff0000,00ff00,0000ff)</li>
+ * <li>for a scene file, the four fields of the frame, the density and the palette
+ * can be "-" to use the ones of the scene</li>
+ * <li><strong>output</strong>: the image file, whose extension gives the format:
+ * .png or .ppm for a flame, .pbm for an IFS</li>
+ * <li><strong>cells</strong>: optional, how a flame stores the squares of its accumulators, 
+ * a {@link CellFormat} (standard by default, compact, high-density or preview) 
+ * or off-heap for standard squares mapped in temporary files of the directory of the output</li>
+ * </ul>
+ */
+public final class RenderJob {
+	private static final String IFS_PREFIX = "ifs:";
+	
+	private final String source;
+	private final Flame flame;
+	private final IFS ifs;
+	private final Rectangle frame;
+	private final int width;
+	private final int height;
+	private final int density;
+	private final Palette palette;
+	private final Color background;
+	private final File output;
+	private final CellFormat cellFormat;
+	private final boolean offHeap;
+	
+	/**
+	 * Creates a RenderJob rendering a preset on a black background
+	 * @param source the preset to render
+	 * @param frame the frame of the plane to render
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @param density a coefficient that increases the amount of hits
+	 * @param palette the palette of a flame, null for an IFS
+	 * @param output the image file
+	 * @throws IllegalArgumentException if the source is unknown, if the size or the density
+	 * is smaller or equal to zero, or if the format of the output doesn't fit the source
+	 */
+	public RenderJob(String source, Rectangle frame, int width, int height, int density, Palette palette, File output) {
+		this(source, isIFS(source) ? null : flame(source), isIFS(source) ? ifs(source) : null, 
+				frame, width, height, density, palette, Color.BLACK, output, CellFormat.STANDARD, false);
+	}
+	
+	/**
+	 * Creates a RenderJob rendering a Scene
+	 * @param source the name of the scene
+	 * @param scene the Scene to render
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @param output the image file
+	 * @throws IllegalArgumentException if the size is smaller or equal to zero,
+	 * or if the output isn't a .png or .ppm file
+	 */
+	public RenderJob(String source, Scene scene, int width, int height, File output) {
+		this(source, scene.flame(), null, scene.frame(), width, height, scene.density(), 
+				scene.palette(), scene.background(), output, CellFormat.STANDARD, false);
+	}
+	
+	/**
+	 * Creates a RenderJob rendering either a Flame or an IFS
+	 * @param source the name of the fractal
+	 * @param flame the Flame to render, null for an IFS
+	 * @param ifs the IFS to render, null for a Flame
+	 * @param frame the frame of the plane to render
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @param density a coefficient that increases the amount of hits
+	 * @param palette the palette of a flame, null for an IFS
+	 * @param background the background color of a flame
+	 * @param output the image file
+	 * @param cellFormat the format of the squares of a flame
+	 * @param offHeap true if the squares of a flame are mapped in temporary files
+	 */
+	private RenderJob(String source, Flame flame, IFS ifs, Rectangle frame, int width, int height, int density,
+			Palette palette, Color background, File output, CellFormat cellFormat, boolean offHeap) {
+		if(width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Negative or null width or height");
+		}
+		if(density <= 0) {
+			throw new IllegalArgumentException("Negative or null density");
+		}
+		
+		String format = extension(output);
+		if(ifs != null) {
+			if(!format.equals("pbm")) {
+				throw new IllegalArgumentException("An IFS is written in a .pbm file: " + output);
+			}
+		}
+		else {
+			if(!format.equals("png") && !format.equals("ppm")) {
+				throw new IllegalArgumentException("A flame is written in a .png or .ppm file: " + output);
+			}
+		}
+		
+		this.source = source;
+		this.flame = flame;
+		this.ifs = ifs;
+		this.frame = frame;
+		this.width = width;
+		this.height = height;
+		this.density = density;
+		this.palette = palette;
+		this.background = background;
+		this.output = output;
+		this.cellFormat = cellFormat;
+		this.offHeap = offHeap;
+	}
+	
+	/**
+	 * Returns a copy of this job storing the squares of its accumulators as described
+	 * @param cells a cell format (standard, compact, high-density or preview), 
+	 * or off-heap for standard squares mapped in temporary files of the directory of the output
+	 * @return the copy of the job
+	 * @throws IllegalArgumentException if the description isn't valid, or if the job renders an IFS
+	 */
+	public RenderJob withCells(String cells) {
+		if(ifs != null) {
+			throw new IllegalArgumentException("An IFS has no cell format: " + cells);
+		}
+		
+		if(cells.equals("off-heap")) {
+			return new RenderJob(source, flame, ifs, frame, width, height, density, palette, background, output, 
+					CellFormat.STANDARD, true);
+		}
+		
+		try {
+			CellFormat cellFormat = CellFormat.valueOf(cells.toUpperCase().replace('-', '_'));
+			return new RenderJob(source, flame, ifs, frame, width, height, density, palette, background, output, 
+					cellFormat, false);
+		}
+		catch(IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown cell format: " + cells);
+		}
+	}
+	
+	/**
+	 * Parses a line of a job list
+	 * @param line the line to parse
+	 * @return the described RenderJob
+	 * @throws IllegalArgumentException if the line isn't a valid job
+	 * @throws IOException if the scene file of the job can't be read
+	 */
+	public static RenderJob parse(String line) throws IOException {
+		String[] fields = line.trim().split("\\s+");
+		if(fields.length != 10 && fields.length != 11) {
+			throw new IllegalArgumentException("Expected 10 or 11 fields, found " + fields.length);
+		}
+		
+		RenderJob job = parseFields(fields);
+		return fields.length == 11 ? job.withCells(fields[10]) : job;
+	}
+	
+	/**
+	 * Parses the ten first fields of a line of a job list
+	 * @param fields the fields of the line
+	 * @return the described RenderJob
+	 * @throws IllegalArgumentException if the fields aren't a valid job
+	 * @throws IOException if the scene file of the job can't be read
+	 */
+	private static RenderJob parseFields(String[] fields) throws IOException {
+		try {
+			if(isScene(fields[0])) {
+				return parseScene(fields);
+			}
+			
+			Point center = new Point(Double.parseDouble(fields[1]), Double.parseDouble(fields[2]));
+			Rectangle frame = new Rectangle(center, Double.parseDouble(fields[3]), Double.parseDouble(fields[4]));
+			int width = Integer.parseInt(fields[5]);
+			int height = Integer.parseInt(fields[6]);
+			int density = Integer.parseInt(fields[7]);
+			
+			return new RenderJob(fields[0], frame, width, height, density, palette(fields[8]), new File(fields[9]));
+		}
+		catch(NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Parses the fields of a job rendering a scene file, "-" meaning the field of the scene
+	 * @param fields the fields of the line
+	 * @return the described RenderJob
+	 * @throws IOException if the scene file can't be read
+	 */
+	private static RenderJob parseScene(String[] fields) throws IOException {
+		Scene scene = Scene.load(new File(fields[0]));
+		
+		Rectangle frame = scene.frame();
+		if(!(fields[1].equals("-") && fields[2].equals("-") && fields[3].equals("-") && fields[4].equals("-"))) {
+			Point center = new Point(Double.parseDouble(fields[1]), Double.parseDouble(fields[2]));
+			frame = new Rectangle(center, Double.parseDouble(fields[3]), Double.parseDouble(fields[4]));
+		}
+		int density = fields[7].equals("-") ? scene.density() : Integer.parseInt(fields[7]);
+		List<Color> colors = fields[8].equals("-") ? scene.paletteColors() : colors(fields[8]);
+		
+		return new RenderJob(fields[0], new Scene(scene.flame(), frame, density, colors, scene.background()),
+				Integer.parseInt(fields[5]), Integer.parseInt(fields[6]), new File(fields[9]));
+	}
+	
+	/**
+	 * @return the preset or the scene file to render
+	 */
+	public String source() {
+		return source;
+	}
+	
+	/**
+	 * @return the image file
+	 */
+	public File output() {
+		return output;
+	}
+	
+	/**
+	 * Computes the fractal and writes it, the chains and the bands running in the pool. 
+	 * Each chain of a flame hits its own accumulator builder, so the memory needed grows with the number of chains.
+	 * @param pool the pool computing and writing the fractal
+	 * @param chains the number of chains of a flame
+	 * @return the time spent computing and the time spent writing, in nanoseconds
+	 * @throws IllegalArgumentException if the number of chains is smaller or equal to zero
+	 * @throws IOException if the image can't be written, or if the squares of an off-heap job can't be mapped
+	 */
+	public long[] render(ForkJoinPool pool, int chains) throws IOException {
+		long start = System.nanoTime();
+		
+		if(ifs != null) {
+			IFSAccumulator accumulator = ifs.compute(frame, width, height, density);
+			long computed = System.nanoTime();
+			
+			PBMWriter.write(accumulator, output);
+			return new long[] {computed - start, System.nanoTime() - computed};
+		}
+		
+		FlameAccumulator.Builder builder = offHeap
+				? new FlameAccumulator.Builder(frame, width, height, output.getAbsoluteFile().getParentFile())
+				: new FlameAccumulator.Builder(frame, width, height, cellFormat);
+		flame.computeAll(builder, density, pool, chains, new Xoshiro256Random(2013));
+		FlameAccumulator accumulator = builder.build();
+		long computed = System.nanoTime();
+		
+		RGBImageWriter writer = extension(output).equals("png")
+				? new PNGWriter(output, width, height, pool)
+				: new PPMWriter(output, width, height);
+		try {
+			RenderPipeline.render(accumulator, palette, background, writer, pool,
+					RenderPipeline.DEFAULT_ROWS_PER_BAND, 2 * pool.getParallelism());
+		}
+		finally {
+			writer.close();
+		}
+		
+		return new long[] {computed - start, System.nanoTime() - computed};
+	}
+	
+	/**
+	 * @param source the source of a job
+	 * @return true if the source is an IFS
+	 */
+	private static boolean isIFS(String source) {
+		return source.startsWith(IFS_PREFIX);
+	}
+	
+	/**
+	 * @param source the source of a job
+	 * @return true if the source is a scene file
+	 */
+	private static boolean isScene(String source) {
+		String format = extension(new File(source));
+		return format.equals("scene") || format.equals("txt");
+	}
+	
+	/**
+	 * @param source the name of a preset flame
+	 * @return the preset flame
+	 * @throws IllegalArgumentException if the preset is unknown
+	 */
+	private static Flame flame(String source) {
+		switch (source) {
+		case "shark-fin":
+			return Flame.createSharkFin();
+		case "turbulence":
+			return Flame.createTurbulence();
+		case "triangle":
+			return Flame.createTriangle();
+		default:
+			throw new IllegalArgumentException("Unknown flame: " + source);
+		}
+	}
+	
+	/**
+	 * @param source the name of a preset IFS, prefixed by "ifs:"
+	 * @return the preset IFS
+	 * @throws IllegalArgumentException if the preset is unknown
+	 */
+	private static IFS ifs(String source) {
+		switch (source.substring(IFS_PREFIX.length())) {
+		case "sierpinski-triangle":
+			return IFS.createSierpinskiTriangle();
+		case "fern":
+			return IFS.createFern();
+		case "sierpinski-carpet":
+			return IFS.createSierpinskiCarpet();
+		case "dragon":
+			return IFS.createDragon();
+		case "tree":
+			return IFS.createTree();
+		default:
+			throw new IllegalArgumentException("Unknown IFS: " + source);
+		}
+	}
+	
+	/**
+	 * Parses a palette
+	 * @param description rgb, random:n, or a list of hexadecimal colors separated by commas
+	 * @return the described palette
+	 * @throws IllegalArgumentException if the description isn't a valid palette
+	 */
+	private static Palette palette(String description) {
+		if(description.equals("rgb")) {
+			return new InterpolatedPalette(Arrays.asList(Color.RED, Color.GREEN, Color.BLUE));
+		}
+		
+		if(description.startsWith("random:")) {
+			return new RandomPalette(Integer.parseInt(description.substring("random:".length())));
+		}
+		
+		return new InterpolatedPalette(colors(description));
+	}
+	
+	/**
+	 * Parses a list of colors
+	 * @param description a list of hexadecimal colors separated by commas
+	 * @return the described colors
+	 * @throws IllegalArgumentException if a color isn't valid
+	 */
+	private static List<Color> colors(String description) {
+		List<Color> colors = new ArrayList<Color>();
+		for (String hex : description.split(",")) {
+			if(hex.length() != 6) {
+				throw new IllegalArgumentException("Invalid color: " + hex);
+			}
+			int rgb = Integer.parseInt(hex, 16);
+			colors.add(new Color((rgb >> 16) / 255.0, ((rgb >> 8) & 0xff) / 255.0, (rgb & 0xff) / 255.0));
+		}
+		
+		return colors;
+	}
+	
+	/**
+	 * @param file a file
+	 * @return the extension of the name of the file, in lower case
+	 */
+	private static String extension(File file) {
+		String name = file.getName();
+		return name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+	}
+}
@@ -125,4 +125,25 @@ public final class Color {
 			throw new IllegalArgumentException("Invalid argument v");
 		}
 	}
+	
+	/**
+	 * Gamma-decodes an integer value between 0 and <strong>max</strong> in a double representing a color, 
+	 * the inverse of {@link #sRGBEncode}
+	 * @param v the gamma-encoded value between 0 and <strong>max</strong>
+	 * @param max the maximum value of <strong>v</strong>
+	 * @return the double representing the color, between 0 and 1
+	 * @throws IllegalArgumentException if <strong>v</strong> isn't between 0 and <strong>max</strong>
+	 */
+	public static double sRGBDecode(int v, int max) {
+		if(v < 0 || v > max) {
+			throw new IllegalArgumentException("Invalid argument v");
+		}
+		
+		double encoded = (double)v / max;
+		if(encoded <= 0.04045) {
+			return encoded / 12.92;
+		}
+		
+		return Math.pow((encoded + 0.055) / 1.055, 2.4);
+	}
 }
@@ -5,7 +5,6 @@
 
 package ch.epfl.flamemaker.color;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -13,7 +12,7 @@ import java.util.List;
  *
  */
 public final class InterpolatedPalette implements Palette {
-	private final List<Color> colors = new ArrayList<Color>();
+	private final PaletteLookupTable table;
 	
 	/**
 	 * Creates an InterpolatedPalette
@@ -21,49 +20,26 @@ public final class InterpolatedPalette implements Palette {
 	 * @throws IllegalArgumentException if there is less than 2 colors in <strong>col</strong>
 	 */
 	public InterpolatedPalette(List<Color> col) {
-		if(col.size() < 2) {
-			throw new IllegalArgumentException("There must be at least two colors");
-		}
-		
-		for (Color  c : col) {
-			colors.add(c);
-		}
+		this(col, PaletteLookupTable.DEFAULT_RESOLUTION);
+	}
+	
+	/**
+	 * Creates an InterpolatedPalette sampled with the given resolution
+	 * @param col the list of colors to create from
+	 * @param resolution the number of entries of the lookup table
+	 * @throws IllegalArgumentException if there is less than 2 colors in <strong>col</strong> or 2 entries
+	 */
+	public InterpolatedPalette(List<Color> col, int resolution) {
+		table = new PaletteLookupTable(col, resolution);
 	}
 	
 	@Override
 	public Color colorForIndex(double index) {
-		int nbrOfColors = colors.size();
-		double[] indexOfColors = new double[nbrOfColors];
-		
-		double intervallSize = 1.0 / (nbrOfColors - 1);
-		// fills indexOfColors
-		for (int i = 0; i < nbrOfColors; i++) {
-			indexOfColors[i] = i *  intervallSize;
-		}
-		
-		if(index == 0) {
-			return new Color(colors.get(0));
-		}
-		
-		else if(index == 1) {
-			return new Color(colors.get(nbrOfColors - 1));
-		}
-		
-		else {
-			int i = 0;
-			
-			// finds the index of the next color near the index
-			while(indexOfColors[i] < index) {
-				i++;
-			}
-			
-			Color nextColor = colors.get(i);
-			Color previousColor = colors.get(i - 1);
-			
-			// mixes the two nearest colors to the index with the right proportion
-			Color colorOfIndex = previousColor.mixWith(nextColor, (index - indexOfColors[i - 1]) * (nbrOfColors - 1));
-			
-			return new Color(colorOfIndex);
-		}
+		return table.colorForIndex(index);
+	}
+	
+	@Override
+	public PaletteLookupTable lookupTable() {
+		return table;
 	}
 }
@@ -17,4 +17,9 @@ public interface Palette {
 	 * @throws IllegalArgumentException if the index is smaller than 0 or greater than 1
 	 */
 	public Color colorForIndex(double index) throws IllegalArgumentException;
+	
+	/**
+	 * @return the palette sampled in a lookup table
+	 */
+	public PaletteLookupTable lookupTable();
 }
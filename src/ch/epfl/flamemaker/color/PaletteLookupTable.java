@@ -0,0 +1,156 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.color;
+
+import java.util.List;
+
+/**
+ * A palette sampled at regularly spaced indexes, so that looking up a color
+ * is an index calculation and an array load
+ */
+public final class PaletteLookupTable {
+	/**
+	 * The number of entries used when no resolution is given
+	 */
+	public static final int DEFAULT_RESOLUTION = 4096;
+
+	private final Color[] entries;
+	private final double[] red;
+	private final double[] green;
+	private final double[] blue;
+	private final int[] packedRGB;
+	private final int last;
+
+	/**
+	 * Creates a lookup table interpolating linearly between evenly spaced colors
+	 * @param colors the colors to interpolate between, the first one at index 0 and the last one at index 1
+	 * @param resolution the number of entries of the table
+	 * @throws IllegalArgumentException if there is less than 2 colors or 2 entries
+	 */
+	public PaletteLookupTable(List<Color> colors, int resolution) {
+		if(colors.size() < 2) {
+			throw new IllegalArgumentException("There must be at least two colors");
+		}
+
+		if(resolution < 2) {
+			throw new IllegalArgumentException("There must be at least two entries");
+		}
+
+		entries = new Color[resolution];
+		red = new double[resolution];
+		green = new double[resolution];
+		blue = new double[resolution];
+		packedRGB = new int[resolution];
+		last = resolution - 1;
+
+		int lastColor = colors.size() - 1;
+		for (int i = 0; i < resolution; i++) {
+			// position of the entry between the colors, the integer part being the previous color
+			double position = (double) i * lastColor / last;
+			int previous = Math.min((int) position, lastColor - 1);
+			double proportion = Math.min(position - previous, 1);
+
+			Color c = colors.get(previous).mixWith(colors.get(previous + 1), proportion);
+			entries[i] = c;
+			red[i] = c.red();
+			green[i] = c.green();
+			blue[i] = c.blue();
+			packedRGB[i] = c.asPackedRGB();
+		}
+	}
+
+	/**
+	 * Creates a lookup table of {@link #DEFAULT_RESOLUTION} entries
+	 * @param colors the colors to interpolate between
+	 * @throws IllegalArgumentException if there is less than 2 colors
+	 */
+	public PaletteLookupTable(List<Color> colors) {
+		this(colors, DEFAULT_RESOLUTION);
+	}
+
+	/**
+	 * @return the number of entries of the table
+	 */
+	public int resolution() {
+		return entries.length;
+	}
+
+	/**
+	 * Returns the entry nearest to the index
+	 * @param index the index in the palette, between 0 and 1
+	 * @return the position of the entry in the table
+	 * @throws IllegalArgumentException if the index is smaller than 0 or greater than 1
+	 */
+	public int entryFor(double index) {
+		if(!(index >= 0 && index <= 1)) {
+			throw new IllegalArgumentException("Invalid index: " + index);
+		}
+
+		return (int) (index * last + 0.5);
+	}
+
+	/**
+	 * Returns the color corresponding to the index
+	 * @param index the index in the palette, between 0 and 1
+	 * @return the color of the nearest entry
+	 * @throws IllegalArgumentException if the index is smaller than 0 or greater than 1
+	 */
+	public Color colorForIndex(double index) {
+		return entries[entryFor(index)];
+	}
+
+	/**
+	 * @param entry the position of the entry in the table
+	 * @return the color of the entry
+	 */
+	public Color color(int entry) {
+		return entries[entry];
+	}
+
+	/**
+	 * @param entry the position of the entry in the table
+	 * @return the red factor of the entry
+	 */
+	public double red(int entry) {
+		return red[entry];
+	}
+
+	/**
+	 * @param entry the position of the entry in the table
+	 * @return the green factor of the entry
+	 */
+	public double green(int entry) {
+		return green[entry];
+	}
+
+	/**
+	 * @param entry the position of the entry in the table
+	 * @return the blue factor of the entry
+	 */
+	public double blue(int entry) {
+		return blue[entry];
+	}
+
+	/**
+	 * @param entry the position of the entry in the table
+	 * @return the gamma-encoded color of the entry, packed as by {@link Color#asPackedRGB()}
+	 */
+	public int packedRGB(int entry) {
+		return packedRGB[entry];
+	}
+
+	/**
+	 * Looks up the colors of several indexes at once
+	 * @param indexes the indexes in the palette, between 0 and 1
+	 * @param result the array receiving the color of each index
+	 * @throws IllegalArgumentException if an index is smaller than 0 or greater than 1
+	 */
+	public void colorsForIndexes(double[] indexes, Color[] result) {
+		for (int i = 0; i < indexes.length; i++) {
+			result[i] = entries[entryFor(indexes[i])];
+		}
+	}
+}
@@ -14,29 +14,45 @@ import java.util.Random;
  *
  */
 public final class RandomPalette implements Palette {
-	private final List<Color> colors = new ArrayList<Color>();
+	private final PaletteLookupTable table;
 	
 	/**
 	 * Creates a new RandomPalette
 	 * @param n the number of colors to be in the palette
 	 */
 	public RandomPalette(int n) {
+		this(n, PaletteLookupTable.DEFAULT_RESOLUTION);
+	}
+	
+	/**
+	 * Creates a new RandomPalette sampled with the given resolution
+	 * @param n the number of colors to be in the palette
+	 * @param resolution the number of entries of the lookup table
+	 */
+	public RandomPalette(int n, int resolution) {
 		if(n < 2) {
 			throw new IllegalArgumentException("There must be at least two colors");
 		}
 		
+		List<Color> colors = new ArrayList<Color>();
 		Random r = new Random();
 		
 		// adds n random colors to the list
 		for (int i = 0; i < n; i++) {
 			colors.add(new Color(r.nextDouble(), r.nextDouble(), r.nextDouble()));
 		}
+		
+		table = new PaletteLookupTable(colors, resolution);
 	}
 
 	@Override
 	public Color colorForIndex(double index) throws IllegalArgumentException {
-		InterpolatedPalette palette = new InterpolatedPalette(colors);
-		return palette.colorForIndex(index);
+		return table.colorForIndex(index);
+	}
+	
+	@Override
+	public PaletteLookupTable lookupTable() {
+		return table;
 	}
 
 }
@@ -0,0 +1,111 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.flame;
+
+/**
+ * A table to choose an index with a probability proportional to its weight in constant time,
+ * built with Vose's alias method
+ */
+final class AliasTable {
+	private final double[] probability;
+	private final int[] alias;
+	
+	/**
+	 * Creates an AliasTable. If all the weights are zero, the indexes are chosen uniformly.
+	 * @param weights the weights of the indexes, positive or zero
+	 * @throws IllegalArgumentException if there is no weight, if a weight is negative, infinite or NaN, 
+	 * or if their sum is infinite
+	 */
+	AliasTable(double[] weights) {
+		int n = weights.length;
+		if(n == 0) {
+			throw new IllegalArgumentException("No weight");
+		}
+		
+		double total = 0;
+		for (double w : weights) {
+			if(!(w >= 0) || Double.isInfinite(w)) {
+				throw new IllegalArgumentException("Negative or non-finite weight: " + w);
+			}
+			total += w;
+		}
+		if(Double.isInfinite(total)) {
+			throw new IllegalArgumentException("Infinite sum of the weights");
+		}
+		
+		probability = new double[n];
+		alias = new int[n];
+		
+		// the weights scaled so that their mean is 1
+		double[] scaled = new double[n];
+		for (int i = 0; i < n; i++) {
+			scaled[i] = total > 0 ? weights[i] * n / total : 1;
+		}
+		
+		// stacks of the indexes with a scaled weight smaller and greater than 1
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int smallCount = 0;
+		int largeCount = 0;
+		
+		for (int i = 0; i < n; i++) {
+			if(scaled[i] < 1) {
+				small[smallCount++] = i;
+			}
+			else {
+				large[largeCount++] = i;
+			}
+		}
+		
+		// each small index fills the rest of its column with a large one
+		while(smallCount > 0 && largeCount > 0) {
+			int s = small[--smallCount];
+			int l = large[--largeCount];
+			
+			probability[s] = scaled[s];
+			alias[s] = l;
+			
+			scaled[l] = (scaled[l] + scaled[s]) - 1;
+			if(scaled[l] < 1) {
+				small[smallCount++] = l;
+			}
+			else {
+				large[largeCount++] = l;
+			}
+		}
+		
+		// the remaining columns are full, up to rounding errors
+		while(largeCount > 0) {
+			int l = large[--largeCount];
+			probability[l] = 1;
+			alias[l] = l;
+		}
+		while(smallCount > 0) {
+			int s = small[--smallCount];
+			probability[s] = 1;
+			alias[s] = s;
+		}
+	}
+	
+	/**
+	 * @return the number of indexes
+	 */
+	int size() {
+		return probability.length;
+	}
+	
+	/**
+	 * Chooses an index from a uniform random number
+	 * @param u a random number in [0,1)
+	 * @return the chosen index
+	 */
+	int sample(double u) {
+		double x = u * probability.length;
+		int column = Math.min((int)x, probability.length - 1);
+		
+		return (x - column) < probability[column] ? column : alias[column];
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.flame;
+
+/**
+ * The ways to store the number of hits and the sum of the color indexes of each square of an accumulator,
+ * trading memory for precision
+ */
+public enum CellFormat {
+	/**
+	 * An int hit count and a double color index sum: 12 bytes per square.
+	 * Exact colors, counts saturate at 2^31 - 1 hits per square, after wich the square stops changing.
+	 */
+	STANDARD(12),
+	
+	/**
+	 * An int hit count and a float color index sum: 8 bytes per square.
+	 * Counts saturate at 2^31 - 1 hits per square like STANDARD ones, the mean color index stays within 
+	 * about hits * 2^-25 of the exact one (1e-3 at 30 000 hits).
+	 */
+	COMPACT(8),
+	
+	/**
+	 * A long hit count and a double color index sum: 16 bytes per square.
+	 * Exact colors, counts up to 2^63 - 1 hits per square, for ultra-high densities.
+	 */
+	HIGH_DENSITY(16),
+	
+	/**
+	 * A 16-bit hit count and a 16-bit mean color index: 4 bytes per square, for previews.
+	 * Counts saturate at 65 535 hits per square, after wich the square stops changing.
+	 * The mean color index is rounded to steps of 1/65 535 after each hit, 
+	 * so it follows new hits less closely once a square has thousands of them.
+	 */
+	PREVIEW(4);
+	
+	private final int bytesPerSquare;
+	
+	private CellFormat(int bytesPerSquare) {
+		this.bytesPerSquare = bytesPerSquare;
+	}
+	
+	/**
+	 * @return the number of bytes used by each square of the accumulator
+	 */
+	public int bytesPerSquare() {
+		return bytesPerSquare;
+	}
+	
+	/**
+	 * Computes the memory needed by an accumulator
+	 * @param width the width of the accumulator
+	 * @param height the height of the accumulator
+	 * @return the number of bytes used by the squares of the accumulator
+	 */
+	public long bytesFor(int width, int height) {
+		return (long)width * height * bytesPerSquare;
+	}
+}
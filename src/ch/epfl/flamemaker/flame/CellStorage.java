@@ -0,0 +1,887 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.flame;
+
+import java.util.Arrays;
+
+/**
+ * The squares of an accumulator, stored row by row in a given CellFormat
+ */
+abstract class CellStorage {
+	// the largest int hit count, at wich the squares of the int formats stop changing
+	static final int MAX_INT_HITS = Integer.MAX_VALUE;
+	
+	// the largest number of hits of a square, kept up to date by the hits, additions and merges
+	long maxHits = 0;
+	
+	/**
+	 * Creates an empty CellStorage
+	 * @param format the format of the squares
+	 * @param size the number of squares
+	 * @return the created CellStorage
+	 */
+	static CellStorage create(CellFormat format, int size) {
+		switch (format) {
+		case STANDARD:
+			return new Standard(size);
+		case COMPACT:
+			return new Compact(size);
+		case HIGH_DENSITY:
+			return new HighDensity(size);
+		case PREVIEW:
+			return new Preview(size);
+		default:
+			throw new IllegalArgumentException("Unknown format: " + format);
+		}
+	}
+	
+	/**
+	 * @return the format of the squares
+	 */
+	abstract CellFormat format();
+	
+	/**
+	 * @return the number of squares
+	 */
+	abstract int size();
+	
+	/**
+	 * Hits a square
+	 * @param i the index of the square
+	 * @param colorIndex the color the square gets hit with
+	 */
+	abstract void hit(int i, double colorIndex);
+	
+	/**
+	 * @param i the index of the square
+	 * @return the number of hits of the square
+	 */
+	abstract long hits(int i);
+	
+	/**
+	 * @return the largest number of hits of a square
+	 */
+	long maxHits() {
+		return maxHits;
+	}
+	
+	/**
+	 * @param i the index of the square
+	 * @return the sum of the color indexes the square got hit with
+	 */
+	abstract double colorIndexSum(int i);
+	
+	/**
+	 * Adds several hits to a square at once
+	 * @param i the index of the square
+	 * @param hits the number of hits to add
+	 * @param colorIndexSum the sum of the color indexes of the added hits
+	 */
+	abstract void add(int i, long hits, double colorIndexSum);
+	
+	/**
+	 * Adds the hits of another storage of the same size, square by square
+	 * @param that the storage to add the hits from
+	 */
+	void mergeWith(CellStorage that) {
+		for (int i = 0; i < size(); i++) {
+			long hits = that.hits(i);
+			
+			if(hits > 0) {
+				add(i, hits, that.colorIndexSum(i));
+			}
+		}
+	}
+	
+	/**
+	 * Returns the color index sum of a square whose count saturates at MAX_INT_HITS, 
+	 * scaled so that the square keeps the mean color index of all its hits
+	 * @param sum the sum of the color indexes of all the hits
+	 * @param hits the number of hits, may be greater than MAX_INT_HITS
+	 * @return the sum to store with the saturated count
+	 */
+	static double saturatedSum(double sum, long hits) {
+		return hits <= MAX_INT_HITS ? sum : sum / hits * MAX_INT_HITS;
+	}
+	
+	/**
+	 * Moves the hits of another storage of the same size to this one: 
+	 * they are added square by square, and the other storage is emptied
+	 * @param that the storage to move the hits from
+	 */
+	void drain(CellStorage that) {
+		mergeWith(that);
+		that.clear();
+	}
+	
+	/**
+	 * Empties all the squares, keeping the storage
+	 */
+	abstract void clear();
+	
+	/**
+	 * @return a copy of the storage
+	 */
+	abstract CellStorage copy();
+	
+	/**
+	 * Returns the squares to give to a built FlameAccumulator: a snapshot of this storage 
+	 * that isn't changed by the next hits, unless it is too large to be copied
+	 * @return the squares for the FlameAccumulator
+	 */
+	CellStorage forAccumulator() {
+		return copy();
+	}
+	
+	
+	/**
+	 * Squares stored in chunks of CHUNK_SIZE squares, copied on write once shared with a snapshot.
+	 * A snapshot only copies the references to the chunks, and its chunks are never written again: 
+	 * the storage copies a shared chunk before hitting it.
+	 */
+	private static abstract class Chunked extends CellStorage {
+		// 256 squares, a fraction of a row, so that the chunks copied between two snapshots follow the hit parts of the image
+		static final int CHUNK_BITS = 8;
+		static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+		static final int CHUNK_MASK = CHUNK_SIZE - 1;
+		
+		private final int size;
+		
+		// the epoch at which each chunk was copied, the chunks of older epochs being shared with a snapshot
+		final int[] chunkEpochs;
+		int epoch;
+		
+		/**
+		 * Creates a Chunked storage owning all its chunks
+		 * @param size the number of squares
+		 */
+		Chunked(int size) {
+			this.size = size;
+			chunkEpochs = new int[(size + CHUNK_MASK) >>> CHUNK_BITS];
+			epoch = 0;
+		}
+		
+		/**
+		 * Creates a Chunked storage with the same squares as another one
+		 * @param that the storage to take the squares from
+		 * @param owned true if the chunks are copied, false if they are shared
+		 */
+		Chunked(Chunked that, boolean owned) {
+			size = that.size;
+			maxHits = that.maxHits;
+			chunkEpochs = new int[that.chunkEpochs.length];
+			epoch = owned ? 0 : 1;
+		}
+		
+		@Override
+		final int size() {
+			return size;
+		}
+		
+		/**
+		 * @param k the index of the chunk
+		 * @return the number of squares of the chunk
+		 */
+		final int chunkLength(int k) {
+			return Math.min(CHUNK_SIZE, size - (k << CHUNK_BITS));
+		}
+		
+		/**
+		 * Copies a chunk shared with a snapshot, so that it can be written
+		 * @param k the index of the chunk
+		 */
+		final void own(int k) {
+			copyChunk(k);
+			chunkEpochs[k] = epoch;
+		}
+		
+		/**
+		 * Replaces a chunk by a copy of itself
+		 * @param k the index of the chunk
+		 */
+		abstract void copyChunk(int k);
+		
+		/**
+		 * Empties a chunk, in place if it is owned, else by replacing it with a new one
+		 * @param k the index of the chunk
+		 * @param owned true if the chunk isn't shared with a snapshot
+		 */
+		abstract void emptyChunk(int k, boolean owned);
+		
+		/**
+		 * Adds the hits of a chunk of another storage of the same format
+		 * @param that the storage to add the hits from
+		 * @param k the index of the chunk
+		 * @return false if the chunk of the other storage has no hits, and nothing was added
+		 */
+		abstract boolean mergeChunk(Chunked that, int k);
+		
+		@Override
+		final void mergeWith(CellStorage that) {
+			if(that.getClass() != getClass()) {
+				super.mergeWith(that);
+				return;
+			}
+			
+			for (int k = 0; k < chunkEpochs.length; k++) {
+				mergeChunk((Chunked)that, k);
+			}
+		}
+		
+		/**
+		 * Moves the hits chunk by chunk, each chunk of the other storage being emptied 
+		 * right after it is added, while it is still in the cache
+		 */
+		@Override
+		final void drain(CellStorage that) {
+			if(that.getClass() != getClass()) {
+				super.drain(that);
+				return;
+			}
+			
+			Chunked c = (Chunked)that;
+			for (int k = 0; k < chunkEpochs.length; k++) {
+				if(mergeChunk(c, k)) {
+					c.emptyChunk(k, c.chunkEpochs[k] == c.epoch);
+					c.chunkEpochs[k] = c.epoch;
+				}
+			}
+			c.maxHits = 0;
+		}
+		
+		/**
+		 * Empties the squares, writing the owned chunks in place, 
+		 * so that only the chunks shared with a snapshot are allocated again
+		 */
+		@Override
+		final void clear() {
+			for (int k = 0; k < chunkEpochs.length; k++) {
+				emptyChunk(k, chunkEpochs[k] == epoch);
+				chunkEpochs[k] = epoch;
+			}
+			maxHits = 0;
+		}
+		
+		/**
+		 * @return a storage sharing the chunks of this one
+		 */
+		abstract Chunked share();
+		
+		/**
+		 * @param chunk the hit counts of a chunk
+		 * @return true if no square of the chunk was hit
+		 */
+		static boolean isEmpty(int[] chunk) {
+			for (int h : chunk) {
+				if(h != 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		/**
+		 * @param chunk the hit counts of a chunk
+		 * @return true if no square of the chunk was hit
+		 */
+		static boolean isEmpty(long[] chunk) {
+			for (long h : chunk) {
+				if(h != 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		/**
+		 * @param chunk the hit counts of a chunk
+		 * @return true if no square of the chunk was hit
+		 */
+		static boolean isEmpty(short[] chunk) {
+			for (short h : chunk) {
+				if(h != 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		/**
+		 * Shares the chunks with a snapshot: it costs one reference per chunk, 
+		 * the chunks being copied later, when this storage hits them
+		 */
+		@Override
+		final CellStorage forAccumulator() {
+			Chunked snapshot = share();
+			epoch++;
+			return snapshot;
+		}
+	}
+	
+	/**
+	 * int hit counts and double color index sums
+	 */
+	private static final class Standard extends Chunked {
+		private final int[][] hits;
+		private final double[][] sums;
+		
+		private Standard(int size) {
+			super(size);
+			hits = new int[chunkEpochs.length][];
+			sums = new double[chunkEpochs.length][];
+			
+			for (int k = 0; k < hits.length; k++) {
+				hits[k] = new int[chunkLength(k)];
+				sums[k] = new double[chunkLength(k)];
+			}
+		}
+		
+		private Standard(Standard that, boolean owned) {
+			super(that, owned);
+			hits = that.hits.clone();
+			sums = that.sums.clone();
+			
+			if(owned) {
+				for (int k = 0; k < hits.length; k++) {
+					copyChunk(k);
+				}
+			}
+		}
+		
+		@Override
+		CellFormat format() {
+			return CellFormat.STANDARD;
+		}
+		
+		@Override
+		void hit(int i, double colorIndex) {
+			int k = i >>> CHUNK_BITS;
+			int j = i & CHUNK_MASK;
+			int h = hits[k][j];
+			
+			// the count saturates at MAX_INT_HITS, after wich the square stops changing
+			if(h < MAX_INT_HITS) {
+				if(chunkEpochs[k] != epoch) {
+					own(k);
+				}
+				
+				hits[k][j] = ++h;
+				sums[k][j] += colorIndex;
+				
+				if(h > maxHits) {
+					maxHits = h;
+				}
+			}
+		}
+		
+		@Override
+		long hits(int i) {
+			return hits[i >>> CHUNK_BITS][i & CHUNK_MASK];
+		}
+		
+		@Override
+		double colorIndexSum(int i) {
+			return sums[i >>> CHUNK_BITS][i & CHUNK_MASK];
+		}
+		
+		@Override
+		void add(int i, long hits, double colorIndexSum) {
+			int k = i >>> CHUNK_BITS;
+			if(chunkEpochs[k] != epoch) {
+				own(k);
+			}
+			
+			int j = i & CHUNK_MASK;
+			long n = this.hits[k][j] + hits;
+			double sum = sums[k][j] + colorIndexSum;
+			this.hits[k][j] = (int)Math.min(n, MAX_INT_HITS);
+			sums[k][j] = saturatedSum(sum, n);
+			maxHits = Math.max(maxHits, this.hits[k][j]);
+		}
+		
+		@Override
+		boolean mergeChunk(Chunked that, int k) {
+			Standard other = (Standard)that;
+			int[] thatHits = other.hits[k];
+			if(isEmpty(thatHits)) {
+				return false;
+			}
+			
+			// a chunk shared with a snapshot is only copied once the other storage has hits in it
+			if(chunkEpochs[k] != epoch) {
+				own(k);
+			}
+			
+			int[] chunkHits = hits[k];
+			double[] chunkSums = sums[k];
+			double[] thatSums = other.sums[k];
+			long max = maxHits;
+			for (int j = 0; j < chunkHits.length; j++) {
+				long n = (long)chunkHits[j] + thatHits[j];
+				
+				if(n <= MAX_INT_HITS) {
+					chunkHits[j] = (int)n;
+					chunkSums[j] += thatSums[j];
+				}
+				else {
+					chunkHits[j] = MAX_INT_HITS;
+					chunkSums[j] = saturatedSum(chunkSums[j] + thatSums[j], n);
+				}
+				max = Math.max(max, chunkHits[j]);
+			}
+			maxHits = max;
+			return true;
+		}
+		
+		@Override
+		void copyChunk(int k) {
+			hits[k] = hits[k].clone();
+			sums[k] = sums[k].clone();
+		}
+		
+		@Override
+		void emptyChunk(int k, boolean owned) {
+			if(owned) {
+				Arrays.fill(hits[k], 0);
+				Arrays.fill(sums[k], 0);
+			}
+			else {
+				hits[k] = new int[chunkLength(k)];
+				sums[k] = new double[chunkLength(k)];
+			}
+		}
+		
+		@Override
+		Chunked share() {
+			return new Standard(this, false);
+		}
+		
+		@Override
+		CellStorage copy() {
+			return new Standard(this, true);
+		}
+	}
+	
+	/**
+	 * int hit counts and float color index sums
+	 */
+	private static final class Compact extends Chunked {
+		private final int[][] hits;
+		private final float[][] sums;
+		
+		private Compact(int size) {
+			super(size);
+			hits = new int[chunkEpochs.length][];
+			sums = new float[chunkEpochs.length][];
+			
+			for (int k = 0; k < hits.length; k++) {
+				hits[k] = new int[chunkLength(k)];
+				sums[k] = new float[chunkLength(k)];
+			}
+		}
+		
+		private Compact(Compact that, boolean owned) {
+			super(that, owned);
+			hits = that.hits.clone();
+			sums = that.sums.clone();
+			
+			if(owned) {
+				for (int k = 0; k < hits.length; k++) {
+					copyChunk(k);
+				}
+			}
+		}
+		
+		@Override
+		CellFormat format() {
+			return CellFormat.COMPACT;
+		}
+		
+		@Override
+		void hit(int i, double colorIndex) {
+			int k = i >>> CHUNK_BITS;
+			int j = i & CHUNK_MASK;
+			int h = hits[k][j];
+			
+			// the count saturates at MAX_INT_HITS, after wich the square stops changing
+			if(h < MAX_INT_HITS) {
+				if(chunkEpochs[k] != epoch) {
+					own(k);
+				}
+				
+				hits[k][j] = ++h;
+				sums[k][j] += (float)colorIndex;
+				
+				if(h > maxHits) {
+					maxHits = h;
+				}
+			}
+		}
+		
+		@Override
+		long hits(int i) {
+			return hits[i >>> CHUNK_BITS][i & CHUNK_MASK];
+		}
+		
+		@Override
+		double colorIndexSum(int i) {
+			return sums[i >>> CHUNK_BITS][i & CHUNK_MASK];
+		}
+		
+		@Override
+		void add(int i, long hits, double colorIndexSum) {
+			int k = i >>> CHUNK_BITS;
+			if(chunkEpochs[k] != epoch) {
+				own(k);
+			}
+			
+			int j = i & CHUNK_MASK;
+			long n = this.hits[k][j] + hits;
+			double sum = sums[k][j] + colorIndexSum;
+			this.hits[k][j] = (int)Math.min(n, MAX_INT_HITS);
+			sums[k][j] = (float)saturatedSum(sum, n);
+			maxHits = Math.max(maxHits, this.hits[k][j]);
+		}
+		
+		@Override
+		boolean mergeChunk(Chunked that, int k) {
+			Compact other = (Compact)that;
+			int[] thatHits = other.hits[k];
+			if(isEmpty(thatHits)) {
+				return false;
+			}
+			
+			// a chunk shared with a snapshot is only copied once the other storage has hits in it
+			if(chunkEpochs[k] != epoch) {
+				own(k);
+			}
+			
+			int[] chunkHits = hits[k];
+			float[] chunkSums = sums[k];
+			float[] thatSums = other.sums[k];
+			long max = maxHits;
+			for (int j = 0; j < chunkHits.length; j++) {
+				long n = (long)chunkHits[j] + thatHits[j];
+				
+				if(n <= MAX_INT_HITS) {
+					chunkHits[j] = (int)n;
+					chunkSums[j] += thatSums[j];
+				}
+				else {
+					chunkHits[j] = MAX_INT_HITS;
+					chunkSums[j] = (float)saturatedSum(chunkSums[j] + thatSums[j], n);
+				}
+				max = Math.max(max, chunkHits[j]);
+			}
+			maxHits = max;
+			return true;
+		}
+		
+		@Override
+		void copyChunk(int k) {
+			hits[k] = hits[k].clone();
+			sums[k] = sums[k].clone();
+		}
+		
+		@Override
+		void emptyChunk(int k, boolean owned) {
+			if(owned) {
+				Arrays.fill(hits[k], 0);
+				Arrays.fill(sums[k], 0);
+			}
+			else {
+				hits[k] = new int[chunkLength(k)];
+				sums[k] = new float[chunkLength(k)];
+			}
+		}
+		
+		@Override
+		Chunked share() {
+			return new Compact(this, false);
+		}
+		
+		@Override
+		CellStorage copy() {
+			return new Compact(this, true);
+		}
+	}
+	
+	/**
+	 * long hit counts and double color index sums
+	 */
+	private static final class HighDensity extends Chunked {
+		private final long[][] hits;
+		private final double[][] sums;
+		
+		private HighDensity(int size) {
+			super(size);
+			hits = new long[chunkEpochs.length][];
+			sums = new double[chunkEpochs.length][];
+			
+			for (int k = 0; k < hits.length; k++) {
+				hits[k] = new long[chunkLength(k)];
+				sums[k] = new double[chunkLength(k)];
+			}
+		}
+		
+		private HighDensity(HighDensity that, boolean owned) {
+			super(that, owned);
+			hits = that.hits.clone();
+			sums = that.sums.clone();
+			
+			if(owned) {
+				for (int k = 0; k < hits.length; k++) {
+					copyChunk(k);
+				}
+			}
+		}
+		
+		@Override
+		CellFormat format() {
+			return CellFormat.HIGH_DENSITY;
+		}
+		
+		@Override
+		void hit(int i, double colorIndex) {
+			int k = i >>> CHUNK_BITS;
+			if(chunkEpochs[k] != epoch) {
+				own(k);
+			}
+			
+			int j = i & CHUNK_MASK;
+			long h = ++hits[k][j];
+			sums[k][j] += colorIndex;
+			
+			if(h > maxHits) {
+				maxHits = h;
+			}
+		}
+		
+		@Override
+		long hits(int i) {
+			return hits[i >>> CHUNK_BITS][i & CHUNK_MASK];
+		}
+		
+		@Override
+		double colorIndexSum(int i) {
+			return sums[i >>> CHUNK_BITS][i & CHUNK_MASK];
+		}
+		
+		@Override
+		void add(int i, long hits, double colorIndexSum) {
+			int k = i >>> CHUNK_BITS;
+			if(chunkEpochs[k] != epoch) {
+				own(k);
+			}
+			
+			int j = i & CHUNK_MASK;
+			this.hits[k][j] += hits;
+			sums[k][j] += colorIndexSum;
+			maxHits = Math.max(maxHits, this.hits[k][j]);
+		}
+		
+		@Override
+		boolean mergeChunk(Chunked that, int k) {
+			HighDensity other = (HighDensity)that;
+			long[] thatHits = other.hits[k];
+			if(isEmpty(thatHits)) {
+				return false;
+			}
+			
+			// a chunk shared with a snapshot is only copied once the other storage has hits in it
+			if(chunkEpochs[k] != epoch) {
+				own(k);
+			}
+			
+			long[] chunkHits = hits[k];
+			double[] chunkSums = sums[k];
+			double[] thatSums = other.sums[k];
+			long max = maxHits;
+			for (int j = 0; j < chunkHits.length; j++) {
+				chunkHits[j] += thatHits[j];
+				chunkSums[j] += thatSums[j];
+				max = Math.max(max, chunkHits[j]);
+			}
+			maxHits = max;
+			return true;
+		}
+		
+		@Override
+		void copyChunk(int k) {
+			hits[k] = hits[k].clone();
+			sums[k] = sums[k].clone();
+		}
+		
+		@Override
+		void emptyChunk(int k, boolean owned) {
+			if(owned) {
+				Arrays.fill(hits[k], 0);
+				Arrays.fill(sums[k], 0);
+			}
+			else {
+				hits[k] = new long[chunkLength(k)];
+				sums[k] = new double[chunkLength(k)];
+			}
+		}
+		
+		@Override
+		Chunked share() {
+			return new HighDensity(this, false);
+		}
+		
+		@Override
+		CellStorage copy() {
+			return new HighDensity(this, true);
+		}
+	}
+	
+	/**
+	 * 16-bit saturating hit counts and 16-bit mean color indexes
+	 */
+	private static final class Preview extends Chunked {
+		private static final int MAX = 0xffff;
+		
+		private final short[][] hits;
+		private final short[][] means;
+		
+		private Preview(int size) {
+			super(size);
+			hits = new short[chunkEpochs.length][];
+			means = new short[chunkEpochs.length][];
+			
+			for (int k = 0; k < hits.length; k++) {
+				hits[k] = new short[chunkLength(k)];
+				means[k] = new short[chunkLength(k)];
+			}
+		}
+		
+		private Preview(Preview that, boolean owned) {
+			super(that, owned);
+			hits = that.hits.clone();
+			means = that.means.clone();
+			
+			if(owned) {
+				for (int k = 0; k < hits.length; k++) {
+					copyChunk(k);
+				}
+			}
+		}
+		
+		@Override
+		CellFormat format() {
+			return CellFormat.PREVIEW;
+		}
+		
+		@Override
+		void hit(int i, double colorIndex) {
+			int k = i >>> CHUNK_BITS;
+			int j = i & CHUNK_MASK;
+			int n = hits[k][j] & MAX;
+			
+			if(n < MAX) {
+				if(chunkEpochs[k] != epoch) {
+					own(k);
+				}
+				
+				// updates the running mean of the color indexes
+				double mean = (means[k][j] & MAX) / (double)MAX;
+				mean += (colorIndex - mean) / (n + 1);
+				
+				hits[k][j] = (short)(n + 1);
+				means[k][j] = (short)Math.round(mean * MAX);
+				maxHits = Math.max(maxHits, n + 1);
+			}
+		}
+		
+		@Override
+		long hits(int i) {
+			return hits[i >>> CHUNK_BITS][i & CHUNK_MASK] & MAX;
+		}
+		
+		@Override
+		double colorIndexSum(int i) {
+			return hits(i) * ((means[i >>> CHUNK_BITS][i & CHUNK_MASK] & MAX) / (double)MAX);
+		}
+		
+		@Override
+		void add(int i, long hits, double colorIndexSum) {
+			int k = i >>> CHUNK_BITS;
+			if(chunkEpochs[k] != epoch) {
+				own(k);
+			}
+			
+			long n = hits(i);
+			double mean = (colorIndexSum(i) + colorIndexSum) / (n + hits);
+			
+			int j = i & CHUNK_MASK;
+			this.hits[k][j] = (short)Math.min(n + hits, MAX);
+			means[k][j] = (short)Math.round(mean * MAX);
+			maxHits = Math.max(maxHits, hits(i));
+		}
+		
+		@Override
+		boolean mergeChunk(Chunked that, int k) {
+			Preview other = (Preview)that;
+			short[] thatHits = other.hits[k];
+			if(isEmpty(thatHits)) {
+				return false;
+			}
+			
+			// a chunk shared with a snapshot is only copied once the other storage has hits in it
+			if(chunkEpochs[k] != epoch) {
+				own(k);
+			}
+			
+			short[] chunkHits = hits[k];
+			short[] chunkMeans = means[k];
+			short[] thatMeans = other.means[k];
+			long max = maxHits;
+			for (int j = 0; j < chunkHits.length; j++) {
+				int m = thatHits[j] & MAX;
+				if(m == 0) {
+					continue;
+				}
+				
+				// the mean of both means weighted by their numbers of hits, rounded
+				int n = chunkHits[j] & MAX;
+				long weighted = (long)(chunkMeans[j] & MAX) * n + (long)(thatMeans[j] & MAX) * m;
+				chunkMeans[j] = (short)((weighted + (n + m) / 2) / (n + m));
+				chunkHits[j] = (short)Math.min(n + m, MAX);
+				max = Math.max(max, chunkHits[j] & MAX);
+			}
+			maxHits = max;
+			return true;
+		}
+		
+		@Override
+		void copyChunk(int k) {
+			hits[k] = hits[k].clone();
+			means[k] = means[k].clone();
+		}
+		
+		@Override
+		void emptyChunk(int k, boolean owned) {
+			if(owned) {
+				Arrays.fill(hits[k], (short)0);
+				Arrays.fill(means[k], (short)0);
+			}
+			else {
+				hits[k] = new short[chunkLength(k)];
+				means[k] = new short[chunkLength(k)];
+			}
+		}
+		
+		@Override
+		Chunked share() {
+			return new Preview(this, false);
+		}
+		
+		@Override
+		CellStorage copy() {
+			return new Preview(this, true);
+		}
+	}
+}
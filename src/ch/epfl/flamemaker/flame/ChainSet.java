@@ -0,0 +1,174 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.flame;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import ch.epfl.flamemaker.random.RandomSource;
+
+/**
+ * Independent chains of the chaos game, each one hitting its own accumulator builder,
+ * run step by step in a pool. The chains continue from one step to the next,
+ * so that a fractal can be computed progressively and looked at between the steps.
+ * Not thread-safe: the steps and the snapshots must be asked by a single thread.
+ */
+public final class ChainSet {
+	private final ChaosChain[] chains;
+	private final FlameAccumulator.Builder[] builders;
+	private long hits = 0;
+	
+	/* the sum of the chains, kept from one snapshot to the next so that its snapshots share their history
+	and its squares, the builders of the chains only holding the hits since the last snapshot */
+	private FlameAccumulator.Builder sum;
+	
+	/**
+	 * Creates a ChainSet, the first chain hitting the given builder and each other chain an empty copy of it
+	 * @param flame the fractal to compute
+	 * @param builder the builder hit by the first chain, giving the frame, the size and the format of the others
+	 * @param count the number of chains
+	 * @param random the generator from wich the random stream of each chain is split
+	 * @throws IllegalArgumentException if the number of chains is smaller or equal to zero
+	 */
+	public ChainSet(Flame flame, FlameAccumulator.Builder builder, int count, RandomSource random) {
+		if(count <= 0) {
+			throw new IllegalArgumentException("Negative or null number of chains");
+		}
+		
+		chains = new ChaosChain[count];
+		builders = new FlameAccumulator.Builder[count];
+		
+		for (int i = 0; i < count; i++) {
+			builders[i] = i == 0 ? builder : builder.emptyCopy();
+			chains[i] = new ChaosChain(flame.kernel(), random.split());
+			
+			// the 20 first hits of each chain don't count
+			chains[i].skip(20);
+		}
+	}
+	
+	/**
+	 * @return the number of chains
+	 */
+	public int size() {
+		return chains.length;
+	}
+	
+	/**
+	 * @return the number of hits computed by all the chains since their creation
+	 */
+	public long hits() {
+		return hits;
+	}
+	
+	/**
+	 * Runs a step: the chains share the given number of hits and run in parallel in the pool
+	 * @param stepHits the number of hits of the step
+	 * @param pool the pool running the chains
+	 */
+	public void run(long stepHits, ForkJoinPool pool) {
+		run(stepHits, pool, null);
+	}
+	
+	/**
+	 * Runs a step that can be cancelled: the chains check the cancellation every few thousand hits 
+	 * and stop as soon as it is cancelled, so that the pool is free again within milliseconds. 
+	 * A cancelled step leaves the chains in the middle of it: the ChainSet is meant to be abandoned.
+	 * @param stepHits the number of hits of the step
+	 * @param pool the pool running the chains
+	 * @param cancellation the cancellation of the step, or null if it can't be cancelled
+	 * @return false if the step was cancelled
+	 */
+	public boolean run(long stepHits, ForkJoinPool pool, Cancellation cancellation) {
+		StepTask task = new StepTask(stepHits, 0, chains.length, cancellation);
+		ComputePool.invoke(pool, task);
+		
+		if(task.cancelled) {
+			return false;
+		}
+		hits += stepHits;
+		return true;
+	}
+	
+	/**
+	 * Sums the hits of all the chains in an accumulator.
+	 * The hits of the builders of the chains are moved to a sum kept by the ChainSet, 
+	 * so it costs one addition per square and per chain, and the builders given to the constructor 
+	 * only hold the hits since the last snapshot. 
+	 * The snapshots share the history of a same builder, so that {@link FlameAccumulator#renderChangesInto} 
+	 * only renders the tiles hit by a chain between two of them.
+	 * @return a snapshot of the hits computed so far
+	 */
+	public FlameAccumulator snapshot() {
+		if(builders.length == 1) {
+			return builders[0].build();
+		}
+		
+		if(builders[0].isOffHeap()) {
+			FlameAccumulator.Builder offHeapSum = builders[0].emptyCopy();
+			for (FlameAccumulator.Builder b : builders) {
+				offHeapSum.mergeWith(b);
+			}
+			return offHeapSum.build();
+		}
+		
+		if(sum == null) {
+			sum = builders[0].emptyCopy();
+		}
+		sum.collect(builders);
+		return sum.build();
+	}
+	
+	/**
+	 * The cancellation of a step, checked by the chains while they run
+	 */
+	public interface Cancellation {
+		/**
+		 * @return true if the step must stop, called concurrently by the chains
+		 */
+		boolean isCancelled();
+	}
+	
+	/**
+	 * Runs the chains [first, last) of a step by splitting them in two halves
+	 */
+	private final class StepTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final long stepHits;
+		private final int first, last;
+		private final Cancellation cancellation;
+		
+		// true if a chain of the task stopped because of the cancellation, read after the join
+		private boolean cancelled = false;
+		
+		private StepTask(long stepHits, int first, int last, Cancellation cancellation) {
+			this.stepHits = stepHits;
+			this.first = first;
+			this.last = last;
+			this.cancellation = cancellation;
+		}
+		
+		@Override
+		protected void compute() {
+			if(last - first == 1) {
+				// the remaining hits are given to the first chains
+				int count = chains.length;
+				long chainHits = stepHits / count + (first < stepHits % count ? 1 : 0);
+				cancelled = !chains[first].run(builders[first], chainHits, cancellation);
+				return;
+			}
+			
+			int middle = (first + last) >>> 1;
+			StepTask right = new StepTask(stepHits, middle, last, cancellation);
+			StepTask left = new StepTask(stepHits, first, middle, cancellation);
+			right.fork();
+			left.compute();
+			right.join();
+			cancelled = left.cancelled || right.cancelled;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.flame;
+
+import ch.epfl.flamemaker.random.RandomSource;
+
+/**
+ * A chain of the chaos game: a point and its color index, 
+ * transformed by randomly chosen transformations of a FlameKernel
+ */
+final class ChaosChain {
+	// the number of transformation indexes drawn at once
+	private static final int BLOCK_SIZE = 256;
+	
+	// the number of blocks between two checks of the cancellation, 4096 iterations
+	private static final int BLOCKS_PER_CHECK = 16;
+	
+	private final FlameKernel kernel;
+	private final RandomSource random;
+	private final int[] indexes = new int[BLOCK_SIZE];
+	
+	// the coordinates of the actual point, transformed in place
+	private final double[] point = new double[2];
+	private double colorIndex = 0;
+	
+	/**
+	 * Creates a ChaosChain starting at the origin
+	 * @param kernel the transformations to apply
+	 * @param random the random generator of the chain
+	 */
+	ChaosChain(FlameKernel kernel, RandomSource random) {
+		this.kernel = kernel;
+		this.random = random;
+	}
+	
+	/**
+	 * Iterates the chain without hitting any accumulator
+	 * @param iterations the number of iterations
+	 */
+	void skip(long iterations) {
+		run(null, iterations);
+	}
+	
+	/**
+	 * Iterates the chain, hitting the builder with each point
+	 * @param builder the builder to hit, or null to hit nothing
+	 * @param iterations the number of iterations
+	 */
+	void run(FlameAccumulator.Builder builder, long iterations) {
+		run(builder, iterations, null);
+	}
+	
+	/**
+	 * Iterates the chain, hitting the builder with each point, 
+	 * until the given number of iterations or the cancellation of the computation, 
+	 * checked every few thousand iterations
+	 * @param builder the builder to hit, or null to hit nothing
+	 * @param iterations the number of iterations
+	 * @param cancellation the cancellation of the computation, or null if it can't be cancelled
+	 * @return false if the computation was cancelled before the last iteration
+	 */
+	boolean run(FlameAccumulator.Builder builder, long iterations, ChainSet.Cancellation cancellation) {
+		double[] p = point;
+		double c = colorIndex;
+		int blocks = 0;
+		
+		for (long done = 0; done < iterations; done += BLOCK_SIZE) {
+			if(cancellation != null && ++blocks % BLOCKS_PER_CHECK == 0 && cancellation.isCancelled()) {
+				colorIndex = c;
+				return false;
+			}
+			
+			int blockSize = (int)Math.min(BLOCK_SIZE, iterations - done);
+			kernel.randomTransformations(random, indexes);
+			
+			for (int i = 0; i < blockSize; i++) {
+				int j = indexes[i];
+				kernel.transformPoint(j, p[0], p[1], p);
+				
+				c = kernel.mixColorIndex(j, c);
+				
+				if(builder != null) {
+					builder.hit(p[0], p[1], c);
+				}
+			}
+		}
+		
+		colorIndex = c;
+		return true;
+	}
+}
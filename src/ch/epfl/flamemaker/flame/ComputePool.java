@@ -0,0 +1,48 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.flame;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The fork-join pool shared by the parallel parts of the renderer
+ */
+public final class ComputePool {
+	private static final ForkJoinPool SHARED = new ForkJoinPool();
+
+	private ComputePool() {}
+
+	/**
+	 * @return the shared pool, with one worker per available core
+	 */
+	public static ForkJoinPool shared() {
+		return SHARED;
+	}
+
+	/**
+	 * @return the number of workers of the shared pool
+	 */
+	public static int parallelism() {
+		return SHARED.getParallelism();
+	}
+
+	/**
+	 * Runs the given task in the pool and waits for its result.
+	 * When called from a worker of a pool, the task is run in the current pool
+	 * so that nested parallel work never blocks a worker.
+	 * @param pool the pool to run the task in
+	 * @param task the task to run
+	 * @return the result of the task
+	 */
+	static <T> T invoke(ForkJoinPool pool, ForkJoinTask<T> task) {
+		if(ForkJoinTask.inForkJoinPool()) {
+			return task.invoke();
+		}
+		
+		return pool.invoke(task);
+	}
+}
@@ -7,9 +7,12 @@ package ch.epfl.flamemaker.flame;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import ch.epfl.flamemaker.geometry2d.*;
+import ch.epfl.flamemaker.random.RandomSource;
+import ch.epfl.flamemaker.random.Xoshiro256Random;
 
 /**
  * A Flame fractal defined by a list of FlameTransformation
@@ -17,8 +20,11 @@ import ch.epfl.flamemaker.geometry2d.*;
 public final class Flame {
 	private final List<FlameTransformation> list;
 	
-	private double actualColorIndex = 0;
-	private Point actualPoint = Point.ORIGIN;
+	// the transformations compiled for the computation of the fractal
+	private final FlameKernel kernel;
+	
+	// the chain continued by each call to computePart
+	private final ChaosChain partChain;
 	
 	/**
 	 * Creates a Flame fractal
@@ -32,6 +38,8 @@ public final class Flame {
 		}
 		
 		list = listTemp;
+		kernel = new FlameKernel(list);
+		partChain = new ChaosChain(kernel, new Xoshiro256Random());
 	}
 	
 
@@ -45,9 +53,39 @@ public final class Flame {
 		for (FlameTransformation i : f.list) {
 			list.add(new FlameTransformation(i));
 		}
+		
+		kernel = f.kernel;
+		partChain = new ChaosChain(kernel, new Xoshiro256Random());
+	}
+	
+	/**
+	 * @return the number of transformations of the Flame
+	 */
+	public int transformationCount() {
+		return list.size();
+	}
+	
+	/**
+	 * @param index the index of the transformation
+	 * @return the transformation at the given index
+	 * @throws IndexOutOfBoundsException if the index is invalid
+	 */
+	public FlameTransformation transformation(int index) {
+		if(index < 0 || index >= list.size()) {
+			throw new IndexOutOfBoundsException("Invalid index: " + index);
+		}
+		
+		return list.get(index);
+	}
+	
+	/**
+	 * @return the transformations compiled for the computation of the fractal
+	 */
+	FlameKernel kernel() {
+		return kernel;
 	}
 	
-	/* 
+	/*
 	 * Statics methods, to creates preset fractals
 	 */
 	public static Flame createSharkFin() {
@@ -99,87 +137,164 @@ public final class Flame {
 	 * @return the computed FlameAccumulator
 	 */
 	public FlameAccumulator computeAll(Rectangle frame, int width, int height, int density) {
-		int iterations = width*height*density;
+		long hits = (long)width * height * density - 20;
 		
 		FlameAccumulator.Builder builder = new FlameAccumulator.Builder(frame, width, height);
-		
-		Point p = Point.ORIGIN;		
-		Random random = new Random(2013);
-		
-		double colorIndex = 0.0;
+		ChaosChain chain = new ChaosChain(kernel, new Xoshiro256Random(2013));
 		
 		// 20 first hits don't count
-		for (int i = 0; i < 20; i++) {
-			// a random number of transformation from the list
-			int j = random.nextInt(list.size());
-			p = list.get(j).transformPoint(p);
-			
-			colorIndex = 0.5*(indexColorOfTransformation(j) + colorIndex);
-		}
+		chain.skip(20);
 		
-		// next hits do count
-		for (int i = 20; i < iterations; i++) {
-			// a random number of transformation from the list
-			int j = random.nextInt(list.size());
-			p = list.get(j).transformPoint(p);
-			
-			colorIndex = 0.5*(indexColorOfTransformation(j) + colorIndex);
-			
-			// hitting the accumulator
-			builder.hit(p, colorIndex);
-			
-			if(i % (iterations / 10) == 0) {
-				System.out.println(((int)(i / (double)iterations * 100) + "%"));
-			}
+		// next hits do count, in ten parts to display the progress
+		for (int part = 1; part <= 10; part++) {
+			chain.run(builder, hits * part / 10 - hits * (part - 1) / 10);
+			System.out.println(part * 10 + "%");
 		}
 		
 		return builder.build();
 	}
 	
-	public boolean computePart(int iterations, FlameAccumulator.Builder builder) {
-		Random random = new Random();
-
-		int firstIteration = (int)(iterations / 100.0 * builder.buildingPercent());
-		int lastIteration = (int)(firstIteration + iterations * FlameAccumulator.Builder.PERCENTAGE_STEP / 100.0);
+	/**
+	 * Computes the fractal in a FlameAccumulator on the shared ComputePool,
+	 * with one chain per available core
+	 * @param frame the frame to hit
+	 * @param width the width of the accumulator
+	 * @param height the height of the accumulator
+	 * @param density a coefficient that increases the amount of hits
+	 * @return the computed FlameAccumulator
+	 */
+	public FlameAccumulator computeAllParallel(Rectangle frame, int width, int height, int density) {
+		return computeAll(frame, width, height, density, ComputePool.shared(), ComputePool.parallelism());
+	}
+	
+	/**
+	 * Computes the fractal in a FlameAccumulator with independent chains running in parallel,
+	 * the random streams of the chains being split from a generator seeded with 2013
+	 * @param frame the frame to hit
+	 * @param width the width of the accumulator
+	 * @param height the height of the accumulator
+	 * @param density a coefficient that increases the amount of hits
+	 * @param pool the pool running the chains
+	 * @param chains the number of chains, sharing the hits between themselves
+	 * @throws IllegalArgumentException if the number of chains is smaller or equal to zero
+	 * @return the computed FlameAccumulator
+	 */
+	public FlameAccumulator computeAll(Rectangle frame, int width, int height, int density, ForkJoinPool pool, int chains) {
+		return computeAll(frame, width, height, density, pool, chains, new Xoshiro256Random(2013));
+	}
+	
+	/**
+	 * Computes the fractal in a FlameAccumulator with independent chains running in parallel.
+	 * Each chain hits its own accumulator builder, so the memory needed grows with the number of chains,
+	 * and the builders are merged when the chains are finished.
+	 * @param frame the frame to hit
+	 * @param width the width of the accumulator
+	 * @param height the height of the accumulator
+	 * @param density a coefficient that increases the amount of hits
+	 * @param pool the pool running the chains
+	 * @param chains the number of chains, sharing the hits between themselves
+	 * @param random the generator from wich the random stream of each chain is split
+	 * @throws IllegalArgumentException if the number of chains is smaller or equal to zero
+	 * @return the computed FlameAccumulator
+	 */
+	public FlameAccumulator computeAll(Rectangle frame, int width, int height, int density, 
+			ForkJoinPool pool, int chains, RandomSource random) {
+		FlameAccumulator.Builder builder = new FlameAccumulator.Builder(frame, width, height);
+		computeAll(builder, density, pool, chains, random);
 		
-		// next hits do count
-		for (int i = firstIteration; i < lastIteration; i++) {
-			// a random number of transformation from the list
-			int j = random.nextInt(list.size());
-			actualPoint = list.get(j).transformPoint(actualPoint);
-			
-			actualColorIndex = 0.5*(indexColorOfTransformation(j) + actualColorIndex);
-			
-			// hitting the accumulator
-			if(i > 20) {
-				builder.hit(actualPoint, actualColorIndex);
-			}
+		return builder.build();
+	}
+	
+	/**
+	 * Hits an accumulator builder with independent chains running in parallel.
+	 * The first chain hits the given builder, each other chain hits an empty copy of it,
+	 * so the memory needed grows with the number of chains. The copies are merged 
+	 * in the given builder when the chains are finished.
+	 * @param builder the builder to hit, giving the frame, the size and the format of the squares
+	 * @param density a coefficient that increases the amount of hits
+	 * @param pool the pool running the chains
+	 * @param chains the number of chains, sharing the hits between themselves
+	 * @param random the generator from wich the random stream of each chain is split
+	 * @throws IllegalArgumentException if the number of chains is smaller or equal to zero
+	 */
+	public void computeAll(FlameAccumulator.Builder builder, int density, ForkJoinPool pool, int chains, RandomSource random) {
+		if(chains <= 0) {
+			throw new IllegalArgumentException("Negative or null number of chains");
 		}
 		
-		builder.incrementBuildingPercent();
+		long iterations = (long)builder.width() * builder.height() * density;
 		
-		return builder.buildingFinished();
+		// the streams are split before forking, so that the result doesn't depend on the scheduling
+		RandomSource[] streams = new RandomSource[chains];
+		for (int i = 0; i < chains; i++) {
+			streams[i] = random.split();
+		}
+		
+		ComputePool.invoke(pool, new ChainsTask(builder, iterations, streams, 0, chains));
 	}
 	
 	/**
-	 * Finds the color index of a Transformation depending on its place in the list
-	 * @param indexTransfo index of the Transformation to get the color index from
-	 * @return the color index
+	 * Runs the chains [first, last) by splitting them in two halves, 
+	 * and merges the builder of the second half in the one of the first half
 	 */
-	private double indexColorOfTransformation (int indexTransfo) {
-		if(indexTransfo == 0) {
-			return 0;
+	private final class ChainsTask extends RecursiveTask<FlameAccumulator.Builder> {
+		private static final long serialVersionUID = 1L;
+		
+		// the builder hit by the first chain
+		private final FlameAccumulator.Builder target;
+		private final long iterations;
+		private final RandomSource[] streams;
+		private final int first, last;
+		
+		private ChainsTask(FlameAccumulator.Builder target, long iterations, RandomSource[] streams, int first, int last) {
+			this.target = target;
+			this.iterations = iterations;
+			this.streams = streams;
+			this.first = first;
+			this.last = last;
 		}
 		
-		else if(indexTransfo == 1) {
-			return 1;
+		@Override
+		protected FlameAccumulator.Builder compute() {
+			if(last - first == 1) {
+				FlameAccumulator.Builder builder = first == 0 ? target : target.emptyCopy();
+				ChaosChain chain = new ChaosChain(kernel, streams[first]);
+				
+				// the remaining hits are given to the first chains
+				int chains = streams.length;
+				long hits = iterations / chains + (first < iterations % chains ? 1 : 0);
+				
+				chain.skip(20);
+				chain.run(builder, hits);
+				
+				return builder;
+			}
+			
+			int middle = (first + last) >>> 1;
+			ChainsTask right = new ChainsTask(target, iterations, streams, middle, last);
+			right.fork();
+			
+			FlameAccumulator.Builder builder = new ChainsTask(target, iterations, streams, first, middle).compute();
+			builder.mergeWith(right.join());
+			
+			return builder;
 		}
+	}
+	
+	public boolean computePart(int iterations, FlameAccumulator.Builder builder) {
+		long firstIteration = (long)(iterations / 100.0 * builder.buildingPercent());
+		long lastIteration = (long)(firstIteration + iterations * FlameAccumulator.Builder.PERCENTAGE_STEP / 100.0);
 		
-		else {
-			int line = (int)Math.ceil(Math.log(indexTransfo) / Math.log(2));
-			double premier = 1.0 / (Math.pow(2, line));
-			return premier + ((indexTransfo - Math.pow(2, line - 1) - 1) * 2 * premier);
-		}
+		// the 20 first hits of the building process don't count
+		long skipped = Math.max(0, Math.min(lastIteration, 21) - firstIteration);
+		partChain.skip(skipped);
+		
+		// next hits do count
+		partChain.run(builder, lastIteration - firstIteration - skipped);
+		
+		builder.incrementBuildingPercent();
+		
+		return builder.buildingFinished();
 	}
 	
 	/**
@@ -270,6 +385,69 @@ public final class Flame {
 			builders.get(index).setVariationWeight(variation, newWeight);
 		}
 		
+		/**
+		 * Gives the weight of the FlameTransformation.Builder at given index
+		 * @param index the index of the FlameTransformation.Builder
+		 * @throws IndexOutOfBoundsException if the index is greater or equal 
+		 * to the amount of transformations or smaller than zero
+		 * @return the weight found
+		 */
+		public double transformationWeight(int index) {
+			if(index < 0 || index >= transformationCount()) {
+				throw new IndexOutOfBoundsException("Invalid index: " + index);				
+			}
+			
+			return builders.get(index).weight();
+		}
+		
+		/**
+		 * Sets the weight of the FlameTransformation.Builder at given index
+		 * @param index the index of the FlameTransformation.Builder
+		 * @param newWeight the new weight to set to
+		 * @throws IndexOutOfBoundsException if the index is greater or equal 
+		 * to the amount of transformations or smaller than zero
+		 * @throws IllegalArgumentException if the new weight is negative, infinite or NaN
+		 */
+		public void setTransformationWeight(int index, double newWeight) {
+			if(index < 0 || index >= transformationCount()) {
+				throw new IndexOutOfBoundsException("Invalid index: " + index);				
+			}
+			
+			builders.get(index).setWeight(newWeight);
+		}
+		
+		/**
+		 * Gives the color index given to the FlameTransformation.Builder at given index
+		 * @param index the index of the FlameTransformation.Builder
+		 * @throws IndexOutOfBoundsException if the index is greater or equal 
+		 * to the amount of transformations or smaller than zero
+		 * @return the color index, or NaN if it depends on the place of the transformation
+		 */
+		public double colorIndex(int index) {
+			if(index < 0 || index >= transformationCount()) {
+				throw new IndexOutOfBoundsException("Invalid index: " + index);				
+			}
+			
+			return builders.get(index).colorIndex();
+		}
+		
+		/**
+		 * Gives a color index to the FlameTransformation.Builder at given index
+		 * @param index the index of the FlameTransformation.Builder
+		 * @param newColorIndex the new color index, between 0 and 1, 
+		 * or NaN to use the color index given by the place of the transformation
+		 * @throws IndexOutOfBoundsException if the index is greater or equal 
+		 * to the amount of transformations or smaller than zero
+		 * @throws IllegalArgumentException if the color index isn't between 0 and 1
+		 */
+		public void setColorIndex(int index, double newColorIndex) {
+			if(index < 0 || index >= transformationCount()) {
+				throw new IndexOutOfBoundsException("Invalid index: " + index);				
+			}
+			
+			builders.get(index).setColorIndex(newColorIndex);
+		}
+		
 		/**
 		 * Removes the FlameTransformation.Builder at given index from the builders
 		 * @param index the index of the Builder to remove
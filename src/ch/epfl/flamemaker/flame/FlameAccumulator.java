@@ -5,6 +5,11 @@
 
 package ch.epfl.flamemaker.flame;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
 import ch.epfl.flamemaker.geometry2d.*;
 import ch.epfl.flamemaker.color.*;
 
@@ -12,52 +17,75 @@ import ch.epfl.flamemaker.color.*;
  * An accumulator to store the number of hits and the sum of the index of colors in each square
  */
 public final class FlameAccumulator {
-	private final int[][] hitCount;
-	private final double[][] colorIndexSum;
+	private final int width;
+	private final int height;
+	
+	// the number of hits and the sum of the index of colors of the squares, row by row from the top left one
+	private final CellStorage squares;
+	private final long maxHits;
 	private final double denominator;
 	
-	/**
-	 * Creates a FlameAccumulator
-	 * @param h the two dimension array of the number of hits in each square
-	 * @param colorIndexSum the two dimension array of the sum of the index of colors in each square
-	 */
-	private FlameAccumulator(int[][] h, double[][] colorIndexSum) {
-		hitCount = h.clone();
-		this.colorIndexSum = colorIndexSum.clone();
-		denominator = Math.log(max(h) + 1);
-	}
+	/* the snapshots of a same Builder share its history, and each one has the stamp of the last snapshot 
+	in wich each tile of squares was hit, tile by tile from the top left one */
+	private final Object history;
+	private final long stamp;
+	private final long[] tileStamps;
+	
+	// the intensities of the squares hit at most INTENSITY_TABLE_SIZE - 1 times, computed at the first rendering
+	private volatile double[] intensities;
+	
+	private static final int INTENSITY_TABLE_SIZE = 1 << 16;
+	
+	// the 8-bit gamma-encoded values of SRGB_RESOLUTION evenly spaced linear factors
+	private static final int SRGB_RESOLUTION = 1 << 14;
+	private static final int[] SRGB = sRGBTable();
+	
+	// the number of rows under which a rendering isn't split anymore
+	private static final int ROWS_PER_TASK = 16;
+	
+	// the squares are grouped in tiles of 64x64 squares, to track the ones hit between two snapshots
+	private static final int TILE_BITS = 6;
 	
 	/**
-	 * Gets the max value in a two dimension array
-	 * @param tab the two dimension array
-	 * @return the max found
+	 * Creates a FlameAccumulator
+	 * @param width the width of the accumulator
+	 * @param height the height of the accumulator
+	 * @param squares the squares of the accumulator, not copied, 
+	 * whose largest number of hits is kept up to date by the Builder
+	 * @param history the history of the Builder
+	 * @param stamp the stamp of the snapshot in the history
+	 * @param tileStamps the stamp of the last snapshot in wich each tile was hit, not copied
 	 */
-	private int max(int[][] tab) {
-		int max = 0;
-		
-		for (int i = 0; i < tab.length; i++) {
-			for (int j = 0; j < tab[0].length; j++) {
-				if(tab[i][j] > max) {
-					max = tab[i][j];
-				}
-			}
-		}
-		
-		return max;
+	private FlameAccumulator(int width, int height, CellStorage squares, Object history, long stamp, long[] tileStamps) {
+		this.width = width;
+		this.height = height;
+		this.squares = squares;
+		maxHits = squares.maxHits();
+		denominator = Math.log(maxHits + 1);
+		this.history = history;
+		this.stamp = stamp;
+		this.tileStamps = tileStamps;
 	}
 	
 	/**
 	 * @return the width of the accumulator
 	 */
 	public int width() {
-		return hitCount.length;
+		return width;
 	}
 	
 	/**
 	 * @return the height of the accumulator
 	 */
 	public int height() {
-		return hitCount[0].length;
+		return height;
+	}
+	
+	/**
+	 * @return the largest number of hits of a square, wich normalizes the intensities
+	 */
+	public long maxHits() {
+		return maxHits;
 	}
 	
 	/**
@@ -76,26 +104,360 @@ public final class FlameAccumulator {
 		if(y < 0 || y >= height()) {
 			throw new IndexOutOfBoundsException("Invalid y coordinate");
 		}
-		int hits = hitCount[x][y];
+		int square = y * width + x;
+		long hits = squares.hits(square);
 		
 		if(hits <= 0) {
 			return background; // new Color(background) ?
 		}
 		
-		double index = colorIndexSum[x][y] / hits;
+		double index = Math.min(squares.colorIndexSum(square) / hits, 1);
 		Color c = palette.colorForIndex(index);
 		
-		return background.mixWith(c, intensity(x,y));
+		return background.mixWith(c, intensity(hits));
 	}
 	
 	/**
-	 * Computes the intensity of the square at (x,y) position via a logarithmic fomula
-	 * @param x the x coordinate
-	 * @param y the y coordinate
+	 * Computes the intensity of a square via a logarithmic fomula
+	 * @param hits the number of hits of the square
 	 * @return the computed intensity
 	 */
-	private double intensity(int x, int y) {		
-		return Math.log(hitCount[x][y] + 1) / denominator;
+	private double intensity(long hits) {		
+		return Math.log(hits + 1) / denominator;
+	}
+	
+	/**
+	 * Renders the whole accumulator in packed ARGB pixels, row by row from the top left one.
+	 * The rows are rendered in parallel in the shared pool.
+	 * @param palette the Palette in wich the colors are
+	 * @param background the background color
+	 * @param argb the array receiving the pixels
+	 * @throws IllegalArgumentException if <strong>argb</strong> is smaller than the accumulator
+	 */
+	public void renderInto(final Palette palette, final Color background, final int[] argb) {
+		if(argb.length < width * height) {
+			throw new IllegalArgumentException("Buffer too small: " + argb.length);
+		}
+		
+		ComputePool.invoke(ComputePool.shared(), new RowsTask(new Rows() {
+			@Override
+			public void render(int firstRow, int lastRow) {
+				renderRows(new Renderer(palette, background), argb, firstRow * width, firstRow, lastRow);
+			}
+		}, 0, height));
+	}
+	
+	/**
+	 * Renders a range of rows in packed ARGB pixels. 
+	 * The pixel (x,y) is written at (y - firstRow) * width + x.
+	 * @param palette the Palette in wich the colors are
+	 * @param background the background color
+	 * @param argb the array receiving the pixels
+	 * @param firstRow the first row to render
+	 * @param lastRow the row after the last one to render
+	 * @throws IndexOutOfBoundsException if the rows aren't in the accumulator
+	 * @throws IllegalArgumentException if <strong>argb</strong> is smaller than the rows
+	 */
+	public void renderInto(Palette palette, Color background, int[] argb, int firstRow, int lastRow) {
+		checkRows(firstRow, lastRow, argb.length);
+		renderRows(new Renderer(palette, background), argb, 0, firstRow, lastRow);
+	}
+	
+	/**
+	 * Renders in packed ARGB pixels, row by row from the top left one, only the tiles of 64x64 squares 
+	 * hit since an older snapshot of the same Builder: the other pixels of <strong>argb</strong> are kept, 
+	 * so the cost follows the area hit in between rather than the size of the accumulator. 
+	 * The intensities are normalized by a given largest number of hits instead of the one of this accumulator, 
+	 * so that the pixels kept from the older renderings stay consistent with the new ones. 
+	 * The rows are rendered in parallel in the shared pool.
+	 * @param palette the Palette in wich the colors are
+	 * @param background the background color
+	 * @param argb the array receiving the pixels
+	 * @param older the snapshot the kept pixels were rendered from, 
+	 * or null to render all the squares, as for a snapshot of another Builder
+	 * @param normalization the largest number of hits normalizing the intensities, 
+	 * the intensities above 1 being clamped
+	 * @throws IllegalArgumentException if <strong>argb</strong> is smaller than the accumulator,
+	 * or if the normalization is negative or null
+	 */
+	public void renderChangesInto(final Palette palette, final Color background, final int[] argb, 
+			FlameAccumulator older, final long normalization) {
+		if(argb.length < width * height) {
+			throw new IllegalArgumentException("Buffer too small: " + argb.length);
+		}
+		if(normalization <= 0) {
+			throw new IllegalArgumentException("Negative or null normalization: " + normalization);
+		}
+		
+		// all the tiles are rendered for a snapshot of another Builder, whose stamps can't be compared
+		final long since = older == null || older.history != history ? -1 : older.stamp;
+		final int tileColumns = tileColumns(width);
+		
+		ComputePool.invoke(ComputePool.shared(), new RowsTask(new Rows() {
+			@Override
+			public void render(int firstRow, int lastRow) {
+				Renderer renderer = new Renderer(palette, background, normalization);
+				
+				for (int y = firstRow; y < lastRow; y++) {
+					int tileRow = (y >>> TILE_BITS) * tileColumns;
+					
+					for (int tile = 0; tile < tileColumns; tile++) {
+						if(tileStamps[tileRow + tile] > since) {
+							int last = y * width + Math.min(width, (tile + 1) << TILE_BITS);
+							for (int i = y * width + (tile << TILE_BITS); i < last; i++) {
+								argb[i] = renderer.argb(i);
+							}
+						}
+					}
+				}
+			}
+		}, 0, height));
+	}
+	
+	/**
+	 * @param width the width of an accumulator
+	 * @return the number of columns of tiles of the accumulator
+	 */
+	private static int tileColumns(int width) {
+		return (width + (1 << TILE_BITS) - 1) >>> TILE_BITS;
+	}
+	
+	/**
+	 * Renders the whole accumulator in 8-bit red, green and blue bytes, row by row from the top left pixel.
+	 * The rows are rendered in parallel in the shared pool.
+	 * @param palette the Palette in wich the colors are
+	 * @param background the background color
+	 * @param rgb the array receiving the bytes, three per pixel
+	 * @throws IllegalArgumentException if <strong>rgb</strong> is smaller than the accumulator
+	 */
+	public void renderInto(final Palette palette, final Color background, final byte[] rgb) {
+		if(rgb.length / 3 < width * height) {
+			throw new IllegalArgumentException("Buffer too small: " + rgb.length);
+		}
+		
+		ComputePool.invoke(ComputePool.shared(), new RowsTask(new Rows() {
+			@Override
+			public void render(int firstRow, int lastRow) {
+				renderRows(new Renderer(palette, background), rgb, 3 * firstRow * width, firstRow, lastRow);
+			}
+		}, 0, height));
+	}
+	
+	/**
+	 * Renders a range of rows in 8-bit red, green and blue bytes. 
+	 * The pixel (x,y) is written from 3 * ((y - firstRow) * width + x).
+	 * @param palette the Palette in wich the colors are
+	 * @param background the background color
+	 * @param rgb the array receiving the bytes, three per pixel
+	 * @param firstRow the first row to render
+	 * @param lastRow the row after the last one to render
+	 * @throws IndexOutOfBoundsException if the rows aren't in the accumulator
+	 * @throws IllegalArgumentException if <strong>rgb</strong> is smaller than the rows
+	 */
+	public void renderInto(Palette palette, Color background, byte[] rgb, int firstRow, int lastRow) {
+		checkRows(firstRow, lastRow, rgb.length / 3);
+		renderRows(new Renderer(palette, background), rgb, 0, firstRow, lastRow);
+	}
+	
+	/**
+	 * Renders a range of rows in packed ARGB pixels
+	 * @param renderer the renderer of the pixels
+	 * @param argb the array receiving the pixels
+	 * @param offset the position of the first pixel in <strong>argb</strong>
+	 * @param firstRow the first row to render
+	 * @param lastRow the row after the last one to render
+	 */
+	private void renderRows(Renderer renderer, int[] argb, int offset, int firstRow, int lastRow) {
+		int end = offset + (lastRow - firstRow) * width;
+		for (int i = offset, square = firstRow * width; i < end; i++, square++) {
+			argb[i] = renderer.argb(square);
+		}
+	}
+	
+	/**
+	 * Renders a range of rows in 8-bit red, green and blue bytes
+	 * @param renderer the renderer of the pixels
+	 * @param rgb the array receiving the bytes, three per pixel
+	 * @param offset the position of the first byte in <strong>rgb</strong>
+	 * @param firstRow the first row to render
+	 * @param lastRow the row after the last one to render
+	 */
+	private void renderRows(Renderer renderer, byte[] rgb, int offset, int firstRow, int lastRow) {
+		int end = offset + (lastRow - firstRow) * width * 3;
+		for (int i = offset, square = firstRow * width; i < end; i += 3, square++) {
+			int pixel = renderer.argb(square);
+			rgb[i] = (byte) (pixel >> 16);
+			rgb[i + 1] = (byte) (pixel >> 8);
+			rgb[i + 2] = (byte) pixel;
+		}
+	}
+	
+	/**
+	 * Checks a range of rows to render
+	 * @param firstRow the first row to render
+	 * @param lastRow the row after the last one to render
+	 * @param pixels the number of pixels of the buffer
+	 * @throws IndexOutOfBoundsException if the rows aren't in the accumulator
+	 * @throws IllegalArgumentException if the buffer is smaller than the rows
+	 */
+	private void checkRows(int firstRow, int lastRow, int pixels) {
+		if(firstRow < 0 || lastRow > height || firstRow > lastRow) {
+			throw new IndexOutOfBoundsException("Invalid rows: " + firstRow + " to " + lastRow);
+		}
+		if(pixels < (lastRow - firstRow) * width) {
+			throw new IllegalArgumentException("Buffer too small: " + pixels + " pixels");
+		}
+	}
+	
+	/**
+	 * @return the intensities of the squares hit at most INTENSITY_TABLE_SIZE - 1 times
+	 */
+	private double[] intensities() {
+		double[] table = intensities;
+		
+		if(table == null) {
+			table = new double[(int) Math.min(maxHits + 1, INTENSITY_TABLE_SIZE)];
+			for (int i = 0; i < table.length; i++) {
+				table[i] = Math.log(i + 1) / denominator;
+			}
+			intensities = table;
+		}
+		
+		return table;
+	}
+	
+	/**
+	 * @return the table of the 8-bit gamma-encoded values of the linear factors
+	 */
+	private static int[] sRGBTable() {
+		int[] table = new int[SRGB_RESOLUTION];
+		
+		for (int i = 0; i < table.length; i++) {
+			table[i] = Color.sRGBEncode((double) i / (SRGB_RESOLUTION - 1), 255);
+		}
+		
+		return table;
+	}
+	
+	/**
+	 * Computes the pixels of the squares with primitive values only
+	 */
+	private final class Renderer {
+		private final PaletteLookupTable table;
+		private final double[] intensities;
+		
+		// the factor from the intensities of this accumulator to the ones of the normalization
+		private final double scale;
+		private final double red;
+		private final double green;
+		private final double blue;
+		
+		/**
+		 * Creates a Renderer
+		 * @param palette the Palette in wich the colors are
+		 * @param background the background color
+		 */
+		Renderer(Palette palette, Color background) {
+			this(palette, background, maxHits);
+		}
+		
+		/**
+		 * Creates a Renderer normalizing the intensities by a given largest number of hits
+		 * @param palette the Palette in wich the colors are
+		 * @param background the background color
+		 * @param normalization the largest number of hits normalizing the intensities
+		 */
+		Renderer(Palette palette, Color background, long normalization) {
+			table = palette.lookupTable();
+			intensities = intensities();
+			scale = normalization == maxHits ? 1 : denominator / Math.log(normalization + 1);
+			red = background.red();
+			green = background.green();
+			blue = background.blue();
+		}
+		
+		/**
+		 * Computes the pixel of a square
+		 * @param square the position of the square
+		 * @return the packed ARGB pixel, as the one of {@link FlameAccumulator#color}
+		 */
+		int argb(int square) {
+			long hits = squares.hits(square);
+			
+			double r = red;
+			double g = green;
+			double b = blue;
+			
+			if(hits > 0) {
+				int entry = table.entryFor(Math.min(squares.colorIndexSum(square) / hits, 1));
+				double t = scale * (hits < intensities.length ? intensities[(int) hits] : intensity(hits));
+				if(t > 1) {
+					t = 1;
+				}
+				
+				r += t * (table.red(entry) - r);
+				g += t * (table.green(entry) - g);
+				b += t * (table.blue(entry) - b);
+			}
+			
+			return 0xff000000 | encode(r) << 16 | encode(g) << 8 | encode(b);
+		}
+		
+		/**
+		 * @param v the linear factor, between 0 and 1
+		 * @return the 8-bit gamma-encoded value
+		 */
+		private int encode(double v) {
+			return SRGB[(int) (v * (SRGB_RESOLUTION - 1) + 0.5)];
+		}
+	}
+	
+	/**
+	 * A rendering of a range of rows
+	 */
+	private interface Rows {
+		/**
+		 * Renders a range of rows
+		 * @param firstRow the first row to render
+		 * @param lastRow the row after the last one to render
+		 */
+		void render(int firstRow, int lastRow);
+	}
+	
+	/**
+	 * Splits a range of rows in halves until they are small enough to be rendered
+	 */
+	@SuppressWarnings("serial")
+	private static final class RowsTask extends RecursiveAction {
+		private final Rows rows;
+		private final int firstRow;
+		private final int lastRow;
+		
+		/**
+		 * Creates a RowsTask
+		 * @param rows the rendering to split
+		 * @param firstRow the first row to render
+		 * @param lastRow the row after the last one to render
+		 */
+		RowsTask(Rows rows, int firstRow, int lastRow) {
+			this.rows = rows;
+			this.firstRow = firstRow;
+			this.lastRow = lastRow;
+		}
+		
+		@Override
+		protected void compute() {
+			if(lastRow - firstRow <= ROWS_PER_TASK) {
+				rows.render(firstRow, lastRow);
+				return;
+			}
+			
+			int middle = (firstRow + lastRow) >>> 1;
+			RowsTask right = new RowsTask(rows, middle, lastRow);
+			right.fork();
+			new RowsTask(rows, firstRow, middle).compute();
+			right.join();
+		}
 	}
 	
 	
@@ -107,11 +469,35 @@ public final class FlameAccumulator {
 		public static final int PERCENTAGE_STEP = 1;
 		private int buildingPercent = 0;
 		
-		private int[][] accumulator;
-		private double[][] colorIndexSum;
-		private AffineTransformation toAccumulator;
+		private int width;
+		private int height;
+		
+		private final CellFormat format;
 		private Rectangle frame;
 		
+		// the directory of the file keeping the squares off-heap, or null if they are on the heap
+		private final File directory;
+		
+		// the squares, row by row from the top left one
+		private CellStorage squares;
+		
+		// transforms the frame to the grid of squares, with the y-axis reversed
+		private AffineTransformation toAccumulator;
+		
+		// buffer for the coordinates of the hit square
+		private final double[] square = new double[2];
+		
+		// the last snapshot published to the threads reading the accumulator
+		private volatile FlameAccumulator published;
+		
+		/* the tiles of squares hit since the last snapshot, the stamp of the last snapshot 
+		in wich each tile was hit, and the history the snapshots share until the Builder is cleared */
+		private int tileColumns;
+		private boolean[] hitTiles;
+		private long[] tileStamps;
+		private long stamp;
+		private Object history;
+		
 		
 		/**
 		 * Creates a Builder
@@ -121,26 +507,90 @@ public final class FlameAccumulator {
 		 * @throws IllegalArgumentException if width or height is smaller or equal to zero
 		 */
 		public Builder(Rectangle frame, int width, int height) {
-
-			if(width <= 0 || height <= 0) {
-				throw new IllegalArgumentException("Negative or null width or height");
-			}
-			
-			accumulator = new int[width][height];
-			colorIndexSum = new double[width][height];
-			this.frame = new Rectangle(frame);
-			
-			// translates lower left angle of the frame to the origin
-			Point newCenter = new Point(frame.width()/2.0, frame.height()/2.0);
-			AffineTransformation toOrigin = AffineTransformation.newTranslation(-(frame.center().x() - newCenter.x()),
-																					 -(frame.center().y() - newCenter.y()));
+			this(frame, width, height, CellFormat.STANDARD);
+		}
+		
+		/**
+		 * Creates a Builder storing its squares in a given format
+		 * @param frame the frame wich gets hit by the points
+		 * @param width the width of the accumulator
+		 * @param height the height of the accumulator
+		 * @param format the format of the squares
+		 * @throws IllegalArgumentException if width or height is smaller or equal to zero, 
+		 * or if the accumulator has more than 2^31 - 1 squares
+		 */
+		public Builder(Rectangle frame, int width, int height, CellFormat format) {
+			this.format = format;
+			directory = null;
+			clear(frame, width, height);
+		}
+		
+		/**
+		 * Creates a Builder keeping its squares off-heap, in the STANDARD format, 
+		 * in a memory-mapped temporary file of the given directory. 
+		 * The size of the accumulator is then bounded by the disk instead of the heap.
+		 * @param frame the frame wich gets hit by the points
+		 * @param width the width of the accumulator
+		 * @param height the height of the accumulator
+		 * @param directory the directory of the temporary files
+		 * @throws IllegalArgumentException if width or height is smaller or equal to zero, 
+		 * or if the accumulator has more than 2^31 - 1 squares
+		 * @throws IOException if the temporary file can't be created or mapped
+		 */
+		public Builder(Rectangle frame, int width, int height, File directory) throws IOException {
+			format = CellFormat.STANDARD;
+			this.directory = directory;
 			
-			// looking for scaling coefficients
-			double sX = width / frame.width();
-			double sY = height / frame.height();
+			checkSize(width, height);
+			squares = new MappedCellStorage(directory, width * height);
+			setFrame(frame, width, height);
+			clearTiles();
+		}
+		
+		/**
+		 * @return true if the squares are kept off-heap, in a memory-mapped file
+		 */
+		public boolean isOffHeap() {
+			return directory != null;
+		}
+		
+		/**
+		 * @return the format of the squares
+		 */
+		public CellFormat format() {
+			return format;
+		}
+		
+		/**
+		 * @return the width of the accumulator
+		 */
+		public int width() {
+			return width;
+		}
+		
+		/**
+		 * @return the height of the accumulator
+		 */
+		public int height() {
+			return height;
+		}
+		
+		/**
+		 * @return a new empty Builder with the same frame, width, height and format, 
+		 * off-heap if this one is
+		 * @throws IllegalStateException if the squares of the new Builder can't be mapped
+		 */
+		public Builder emptyCopy() {
+			if(directory == null) {
+				return new Builder(frame, width, height, format);
+			}
 			
-			// scales the frame to the size of the accumulator
-			toAccumulator = new AffineTransformation(sX, 0, 0, 0, sY, 0).composeWith(toOrigin);
+			try {
+				return new Builder(frame, width, height, directory);
+			}
+			catch(IOException e) {
+				throw new IllegalStateException("Cannot map the accumulator: " + e.getMessage(), e);
+			}
 		}
 		
 		/**
@@ -183,22 +633,106 @@ public final class FlameAccumulator {
 		 * @param colorIndex the color the square gets hit with
 		 */
 		public void hit(Point p, double colorIndex) {
-			if(frame.contains(p)) {
-				Point newP = toAccumulator.transformPoint(p);
-				int x = (int)Math.floor(newP.x());
-				int y = (int)Math.floor(newP.y());
-				
-				// hits the square with the y-axis reversed
-				accumulator[x][accumulator[0].length - 1 - y] += 1; 
-				colorIndexSum[x][colorIndexSum[0].length - 1 - y] += colorIndex;
+			hit(p.x(), p.y(), colorIndex);
+		}
+		
+		/**
+		 * Hits the point (x,y) on the accumulator
+		 * @param pX the x coordinate of the point we hit
+		 * @param pY the y coordinate of the point we hit
+		 * @param colorIndex the color the square gets hit with
+		 */
+		public void hit(double pX, double pY, double colorIndex) {
+			toAccumulator.transformPoint(pX, pY, square);
+			double x = square[0];
+			double y = square[1];
+			
+			// the only bounds check, replacing the frame one (false for NaN coordinates)
+			if(x >= 0 && x < width && y >= 0 && y < height) {
+				int squareX = (int)x;
+				int squareY = (int)y;
+				squares.hit(squareY * width + squareX, colorIndex);
+				hitTiles[(squareY >>> TILE_BITS) * tileColumns + (squareX >>> TILE_BITS)] = true;
+			}
+		}
+		
+		/**
+		 * Adds the hits of another builder to this one. 
+		 * The tiles the other builder hit since its last snapshot are marked as hit in this one.
+		 * @param that the builder to add the hits from
+		 * @throws IllegalArgumentException if the two builders don't have the same width, height and format
+		 */
+		public void mergeWith(Builder that) {
+			checkCompatible(that);
+			squares.mergeWith(that.squares);
+			for (int t = 0; t < hitTiles.length; t++) {
+				hitTiles[t] |= that.hitTiles[t];
+			}
+		}
+		
+		/**
+		 * Moves the hits of other builders of the same size and format to this one: 
+		 * they are added to the squares of this builder, and the squares of the others are emptied in place. 
+		 * The squares of this builder are kept, only the chunks shared with a snapshot and hit by the others 
+		 * being copied, so that collecting allocates nothing but the chunks that changed. 
+		 * The tiles the other builders hit since the last collection are marked as hit in this one, and unmarked in them, 
+		 * so that the snapshots of this builder only differ by the tiles hit in between.
+		 * @param parts the builders to empty in this one
+		 * @throws IllegalArgumentException if the builders don't have the same width, height and format
+		 */
+		void collect(Builder[] parts) {
+			for (Builder part : parts) {
+				checkCompatible(part);
+				squares.drain(part.squares);
+				for (int t = 0; t < hitTiles.length; t++) {
+					hitTiles[t] |= part.hitTiles[t];
+				}
+				Arrays.fill(part.hitTiles, false);
 			}
 		}
 		
 		/**
+		 * Builds the FlameAccumulator, a snapshot of the squares that isn't changed by the next hits. 
+		 * The squares are shared by chunks, copied on write when the Builder hits them again, 
+		 * so building costs one reference per chunk of squares. 
+		 * The Builder isn't thread-safe: build must be called by the thread hitting it, 
+		 * the other threads read the snapshots through {@link #publish()} and {@link #published()}.
+		 * Off-heap squares are too large to be copied,
+		 * so the FlameAccumulator of an off-heap Builder reads the squares of the Builder:
+		 * it must not be hit or cleared while the FlameAccumulator is used. 
+		 * The snapshot keeps wich tiles of squares were hit since the previous one, 
+		 * for {@link FlameAccumulator#renderChangesInto}.
 		 * @return the builded finished FlameAccumulator
 		 */
 		public FlameAccumulator build() {
-			return new FlameAccumulator(accumulator, colorIndexSum);
+			stamp++;
+			for (int t = 0; t < hitTiles.length; t++) {
+				if(hitTiles[t]) {
+					tileStamps[t] = stamp;
+					hitTiles[t] = false;
+				}
+			}
+			
+			return new FlameAccumulator(width, height, squares.forAccumulator(), history, stamp, tileStamps.clone());
+		}
+		
+		/**
+		 * Builds a snapshot of the accumulator and publishes it to the other threads. 
+		 * Must be called by the thread hitting the Builder.
+		 * @return the published FlameAccumulator
+		 */
+		public FlameAccumulator publish() {
+			FlameAccumulator accumulator = build();
+			published = accumulator;
+			return accumulator;
+		}
+		
+		/**
+		 * Returns the last published snapshot, consistent even while the Builder is being hit
+		 * @return the last published FlameAccumulator, or null if none was published
+		 */
+		public FlameAccumulator published() {
+			return published;
 		}
 
 		/** 
@@ -206,25 +740,92 @@ public final class FlameAccumulator {
 		 * @param newFrame the new frame
 		 * @param newWidth the new width
 		 * @param newHeight the new height
+		 * @throws IllegalArgumentException if width or height is smaller or equal to zero, 
+		 * or if the accumulator has more than 2^31 - 1 squares
+		 * @throws IllegalStateException if the squares of an off-heap Builder can't be mapped
 		 */
 		public void clear(Rectangle newFrame, int newWidth, int newHeight) {
+			checkSize(newWidth, newHeight);
+			
+			if(directory == null) {
+				squares = CellStorage.create(format, newWidth * newHeight);
+			}
+			else {
+				try {
+					squares = new MappedCellStorage(directory, newWidth * newHeight);
+				}
+				catch(IOException e) {
+					throw new IllegalStateException("Cannot map the accumulator: " + e.getMessage(), e);
+				}
+			}
+			
+			setFrame(newFrame, newWidth, newHeight);
+			clearTiles();
+			setBuildingPercentToZero();
+		}
+		
+		/**
+		 * Checks that another builder can be added to this one
+		 * @param that the other builder
+		 * @throws IllegalArgumentException if the two builders don't have the same width, height and format
+		 */
+		private void checkCompatible(Builder that) {
+			if(that.width != width || that.height != height) {
+				throw new IllegalArgumentException("Builders of different sizes");
+			}
+			if(that.format != format) {
+				throw new IllegalArgumentException("Builders of different formats");
+			}
+		}
+		
+		/**
+		 * Starts a new history of snapshots, with no tile hit
+		 */
+		private void clearTiles() {
+			tileColumns = tileColumns(width);
+			int tiles = tileColumns * ((height + (1 << TILE_BITS) - 1) >>> TILE_BITS);
+			hitTiles = new boolean[tiles];
+			tileStamps = new long[tiles];
+			stamp = 0;
+			history = new Object();
+		}
+		
+		/**
+		 * Checks the size of an accumulator
+		 * @param width the width of the accumulator
+		 * @param height the height of the accumulator
+		 * @throws IllegalArgumentException if width or height is smaller or equal to zero, 
+		 * or if the accumulator has more than 2^31 - 1 squares
+		 */
+		private static void checkSize(int width, int height) {
+			if(width <= 0 || height <= 0) {
+				throw new IllegalArgumentException("Negative or null width or height");
+			}
+			if((long)width * height > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Too many squares: " + width + "x" + height);
+			}
+		}
+		
+		/**
+		 * Sets the frame and the size of the accumulator
+		 * @param newFrame the new frame
+		 * @param newWidth the new width
+		 * @param newHeight the new height
+		 */
+		private void setFrame(Rectangle newFrame, int newWidth, int newHeight) {
 			frame = newFrame;
-			accumulator = new int[newWidth][newHeight];
-			colorIndexSum = new double[newWidth][newHeight];
+			width = newWidth;
+			height = newHeight;
 			
-			// translates lower left angle of the frame to the origin
-			Point newCenter = new Point(frame.width()/2.0, frame.height()/2.0);
-			AffineTransformation toOrigin = AffineTransformation.newTranslation(-(frame.center().x() - newCenter.x()),
-																					 -(frame.center().y() - newCenter.y()));
+			// translates upper left angle of the frame to the origin
+			AffineTransformation toOrigin = AffineTransformation.newTranslation(-newFrame.left(), -newFrame.top());
 			
 			// looking for scaling coefficients
-			double sX = newWidth / frame.width();
-			double sY = newHeight / frame.height();
+			double sX = newWidth / newFrame.width();
+			double sY = newHeight / newFrame.height();
 			
-			// scales the frame to the size of the accumulator
-			toAccumulator = new AffineTransformation(sX, 0, 0, 0, sY, 0).composeWith(toOrigin);
-			
-			setBuildingPercentToZero();
+			// scales the frame to the size of the accumulator, reversing the y-axis
+			toAccumulator = AffineTransformation.newScaling(sX, -sY).composeWith(toOrigin);
 		}
 	}
 }
@@ -0,0 +1,166 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.flame;
+
+import java.util.List;
+
+import ch.epfl.flamemaker.random.RandomSource;
+
+/**
+ * The transformations of a Flame compiled in flat arrays: the affine coefficients 
+ * of each transformation and only its variations with a positive weight.
+ * Each variation is evaluated once per transformed point.
+ */
+final class FlameKernel {
+	private final int count;
+	
+	// the 6 coefficients of the affine part of each transformation
+	private final double[] affine;
+	
+	// the variations of the transformation t are at index variationStart[t] to variationStart[t + 1] - 1
+	private final int[] variationStart;
+	private final int[] variationIds;
+	private final double[] variationWeights;
+	
+	// chooses the transformations with a probability proportional to their weight
+	private final AliasTable transformationTable;
+	
+	// half of the color index of each transformation
+	private final double[] halfColorIndex;
+	
+	/**
+	 * Compiles a list of FlameTransformation
+	 * @param transformations the transformations to compile
+	 */
+	FlameKernel(List<FlameTransformation> transformations) {
+		count = transformations.size();
+		affine = new double[6 * count];
+		variationStart = new int[count + 1];
+		
+		int activeVariations = 0;
+		for (FlameTransformation t : transformations) {
+			for (Variation v : Variation.ALL_VARIATIONS) {
+				if(t.variationWeight(v) > 0) {
+					activeVariations++;
+				}
+			}
+		}
+		
+		variationIds = new int[activeVariations];
+		variationWeights = new double[activeVariations];
+		
+		int k = 0;
+		for (int t = 0; t < count; t++) {
+			FlameTransformation transformation = transformations.get(t);
+			System.arraycopy(transformation.affineTransformation().coefficients(), 0, affine, 6 * t, 6);
+			
+			variationStart[t] = k;
+			for (Variation v : Variation.ALL_VARIATIONS) {
+				double w = transformation.variationWeight(v);
+				
+				if(w > 0) {
+					variationIds[k] = v.index();
+					variationWeights[k] = w;
+					k++;
+				}
+			}
+		}
+		variationStart[count] = k;
+		
+		double[] weights = new double[count];
+		for (int t = 0; t < count; t++) {
+			weights[t] = transformations.get(t).weight();
+		}
+		transformationTable = new AliasTable(weights);
+		
+		halfColorIndex = new double[count];
+		for (int t = 0; t < count; t++) {
+			double colorIndex = transformations.get(t).colorIndex();
+			
+			if(Double.isNaN(colorIndex)) {
+				colorIndex = indexColorOfTransformation(t);
+			}
+			halfColorIndex[t] = 0.5 * colorIndex;
+		}
+	}
+	
+	/**
+	 * @return the number of transformations
+	 */
+	int transformationCount() {
+		return count;
+	}
+	
+	/**
+	 * Fills an array with indexes of transformations, each chosen with a probability proportional to its weight
+	 * @param random the random generator to use
+	 * @param indexes the array to fill
+	 */
+	void randomTransformations(RandomSource random, int[] indexes) {
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = transformationTable.sample(random.nextDouble());
+		}
+	}
+	
+	/**
+	 * Mixes a color index with the color index of a transformation, in equal parts
+	 * @param t the index of the transformation
+	 * @param colorIndex the color index to mix
+	 * @return the mixed color index
+	 */
+	double mixColorIndex(int t, double colorIndex) {
+		return halfColorIndex[t] + 0.5 * colorIndex;
+	}
+	
+	/**
+	 * Finds the color index of a Transformation depending on its place in the list
+	 * @param indexTransfo index of the Transformation to get the color index from
+	 * @return the color index
+	 */
+	private static double indexColorOfTransformation(int indexTransfo) {
+		if(indexTransfo == 0) {
+			return 0;
+		}
+		
+		else if(indexTransfo == 1) {
+			return 1;
+		}
+		
+		else {
+			int line = (int)Math.ceil(Math.log(indexTransfo) / Math.log(2));
+			double premier = 1.0 / (Math.pow(2, line));
+			return premier + ((indexTransfo - Math.pow(2, line - 1) - 1) * 2 * premier);
+		}
+	}
+	
+	/**
+	 * Transforms the point (x,y) by the transformation at given index
+	 * @param t the index of the transformation
+	 * @param x the x coordinate of the point to transform
+	 * @param y the y coordinate of the point to transform
+	 * @param result the array in wich the x and y coordinates of the transformed point are written
+	 */
+	void transformPoint(int t, double x, double y, double[] result) {
+		int a = 6 * t;
+		double affineX = affine[a] * x + affine[a + 1] * y + affine[a + 2];
+		double affineY = affine[a + 3] * x + affine[a + 4] * y + affine[a + 5];
+		
+		double newX = 0.0;
+		double newY = 0.0;
+		
+		for (int k = variationStart[t]; k < variationStart[t + 1]; k++) {
+			double w = variationWeights[k];
+			
+			// result is a buffer for the transformed point until the end
+			Variation.apply(variationIds[k], affineX, affineY, result);
+			newX += w * result[0];
+			newY += w * result[1];
+		}
+		
+		result[0] = newX;
+		result[1] = newY;
+	}
+}
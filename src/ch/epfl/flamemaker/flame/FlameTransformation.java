@@ -13,20 +13,62 @@ import ch.epfl.flamemaker.geometry2d.*;
 public final class FlameTransformation implements Transformation {
 	private final AffineTransformation affineTransfo;
 	private final double[] variationWeight;
+	private final double weight;
+	
+	// the color index given to the transformation, or NaN if it depends on its place in the Flame
+	private final double colorIndex;
 	
 	/**
-	 * Creates a FlameTransformation
+	 * Creates a FlameTransformation, with a weight of 1
 	 * @param affineTransfo the AffineTransformation
 	 * @param variationWeight the array of weights
 	 * @throws IllegalArgumentException when size of the array of weights isn't equal to 6
 	 */
 	public FlameTransformation(AffineTransformation affineTransfo, double[] variationWeight) {
+		this(affineTransfo, variationWeight, 1);
+	}
+	
+	/**
+	 * Creates a FlameTransformation
+	 * @param affineTransfo the AffineTransformation
+	 * @param variationWeight the array of weights
+	 * @param weight the weight of the transformation, proportional to the probability 
+	 * of choosing it in the Flame
+	 * @throws IllegalArgumentException when size of the array of weights isn't equal to 6, 
+	 * or if the weight of the transformation is negative
+	 */
+	public FlameTransformation(AffineTransformation affineTransfo, double[] variationWeight, double weight) {
+		this(affineTransfo, variationWeight, weight, Double.NaN);
+	}
+	
+	/**
+	 * Creates a FlameTransformation with its own color index
+	 * @param affineTransfo the AffineTransformation
+	 * @param variationWeight the array of weights
+	 * @param weight the weight of the transformation, proportional to the probability 
+	 * of choosing it in the Flame
+	 * @param colorIndex the color index of the transformation, between 0 and 1, 
+	 * or NaN to use the color index given by its place in the Flame
+	 * @throws IllegalArgumentException when size of the array of weights isn't equal to 6, 
+	 * if the weight of the transformation is negative, infinite or NaN, or if the color index isn't between 0 and 1
+	 */
+	public FlameTransformation(AffineTransformation affineTransfo, double[] variationWeight, double weight, double colorIndex) {
 		this.affineTransfo = affineTransfo;
 		
 		if(variationWeight.length != 6) {
 			throw new IllegalArgumentException("Size of variationWeight array not equal to 6");
 		}
 		this.variationWeight = variationWeight.clone();
+		
+		if(!(weight >= 0) || Double.isInfinite(weight)) {
+			throw new IllegalArgumentException("Negative or non-finite weight: " + weight);
+		}
+		this.weight = weight;
+		
+		if(colorIndex < 0 || colorIndex > 1) {
+			throw new IllegalArgumentException("Invalid color index");
+		}
+		this.colorIndex = colorIndex;
 	}
 
 	/**
@@ -36,26 +78,71 @@ public final class FlameTransformation implements Transformation {
 	public FlameTransformation(FlameTransformation f) {
 		affineTransfo = new AffineTransformation(f.affineTransfo);
 		variationWeight = f.variationWeight.clone();
+		weight = f.weight;
+		colorIndex = f.colorIndex;
 	}
 
 
+	/**
+	 * @return the AffineTransformation
+	 */
+	public AffineTransformation affineTransformation() {
+		return affineTransfo;
+	}
+	
+	/**
+	 * @param variation the variation to extract the weight from
+	 * @return the weight of the variation
+	 */
+	public double variationWeight(Variation variation) {
+		return variationWeight[variation.index()];
+	}
+
+	/**
+	 * @return the weight of the transformation, proportional to the probability of choosing it in the Flame
+	 */
+	public double weight() {
+		return weight;
+	}
+
+	/**
+	 * @return the color index given to the transformation, 
+	 * or NaN if it depends on its place in the Flame
+	 */
+	public double colorIndex() {
+		return colorIndex;
+	}
+
 	@Override
 	public Point transformPoint(Point p) {
-		Point p1 = affineTransfo.transformPoint(p);
-		double x = 0.0;
-		double y = 0.0;
+		double[] result = new double[2];
+		transformPoint(p.x(), p.y(), result);
+		
+		return new Point(result[0], result[1]);
+	}
+	
+	@Override
+	public void transformPoint(double x, double y, double[] result) {
+		affineTransfo.transformPoint(x, y, result);
+		double affineX = result[0];
+		double affineY = result[1];
+		
+		double newX = 0.0;
+		double newY = 0.0;
 		
 		for (int i = 0; i < 6; i++) {
 			double w = variationWeight[i];
 			
 			if(w > 0) {
-				Variation v = Variation.ALL_VARIATIONS.get(i);
-				x += w * v.transformPoint(p1).x();
-				y += w * v.transformPoint(p1).y();
+				// result is used as a buffer for the variations
+				Variation.ALL_VARIATIONS.get(i).transformPoint(affineX, affineY, result);
+				newX += w * result[0];
+				newY += w * result[1];
 			}
 		}
 		
-		return new Point(x, y);
+		result[0] = newX;
+		result[1] = newY;
 	}
 	
 	/**
@@ -65,6 +152,8 @@ public final class FlameTransformation implements Transformation {
 	public static final class Builder {
 		private double[] variationWeight;
 		private AffineTransformation affineTransfo;
+		private double weight;
+		private double colorIndex;
 		
 		/**
 		 * Creates a Builder
@@ -73,6 +162,8 @@ public final class FlameTransformation implements Transformation {
 		public Builder(FlameTransformation f) {
 			variationWeight = f.variationWeight.clone();
 			affineTransfo = new AffineTransformation(f.affineTransfo);
+			weight = f.weight;
+			colorIndex = f.colorIndex;
 		}
 		
 		/**
@@ -107,11 +198,51 @@ public final class FlameTransformation implements Transformation {
 			affineTransfo = a;
 		}
 		
+		/**
+		 * @return the weight of the transformation
+		 */
+		public double weight() {
+			return weight;
+		}
+		
+		/**
+		 * Sets a new weight to the transformation
+		 * @param newWeight the new weight
+		 * @throws IllegalArgumentException if the new weight is negative, infinite or NaN
+		 */
+		public void setWeight(double newWeight) {
+			if(!(newWeight >= 0) || Double.isInfinite(newWeight)) {
+				throw new IllegalArgumentException("Negative or non-finite weight: " + newWeight);
+			}
+			weight = newWeight;
+		}
+		
+		/**
+		 * @return the color index given to the transformation, 
+		 * or NaN if it depends on its place in the Flame
+		 */
+		public double colorIndex() {
+			return colorIndex;
+		}
+		
+		/**
+		 * Gives a color index to the transformation
+		 * @param newColorIndex the new color index, between 0 and 1, 
+		 * or NaN to use the color index given by its place in the Flame
+		 * @throws IllegalArgumentException if the color index isn't between 0 and 1
+		 */
+		public void setColorIndex(double newColorIndex) {
+			if(newColorIndex < 0 || newColorIndex > 1) {
+				throw new IllegalArgumentException("Invalid color index");
+			}
+			colorIndex = newColorIndex;
+		}
+		
 		/**
 		 * @return the builded finished FlameTransformation
 		 */
 		public FlameTransformation build() {
-			return new FlameTransformation(affineTransfo, variationWeight); 
+			return new FlameTransformation(affineTransfo, variationWeight, weight, colorIndex); 
 		}
 	}
 }
@@ -0,0 +1,173 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.flame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Squares in the STANDARD format kept off-heap, in a memory-mapped temporary file.
+ * The file is mapped in segments, since a single mapping can't exceed 2GB.
+ * Its size is only bounded by the disk, and the garbage collector doesn't trace it.
+ */
+final class MappedCellStorage extends CellStorage {
+	// 2^27 squares per segment: 512MB of hit counts and 1GB of color index sums
+	private static final int SEGMENT_BITS = 27;
+	private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+	
+	private final File directory;
+	private final int size;
+	private final IntBuffer[] hits;
+	private final DoubleBuffer[] sums;
+	
+	/**
+	 * Creates an empty MappedCellStorage in a new temporary file. 
+	 * The file is deleted as soon as it is mapped where the system allows it, when the program exits otherwise.
+	 * @param directory the directory of the temporary file
+	 * @param size the number of squares
+	 * @throws IOException if the file can't be created or mapped
+	 */
+	MappedCellStorage(File directory, int size) throws IOException {
+		this.directory = directory;
+		this.size = size;
+		
+		int segments = (size + SEGMENT_MASK) >>> SEGMENT_BITS;
+		hits = new IntBuffer[segments];
+		sums = new DoubleBuffer[segments];
+		
+		File file = File.createTempFile("accumulator", ".bin", directory);
+		file.deleteOnExit();
+		
+		// all the hit counts, padded to 8 bytes, then all the color index sums
+		long hitsBytes = ((4L * size + 7) / 8) * 8;
+		
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			// the file is extended with zeros, and is sparse on most file systems
+			raf.setLength(hitsBytes + 8L * size);
+			FileChannel channel = raf.getChannel();
+			
+			for (int s = 0; s < segments; s++) {
+				long first = (long)s << SEGMENT_BITS;
+				int count = (int)Math.min(1 << SEGMENT_BITS, size - first);
+				
+				hits[s] = channel.map(FileChannel.MapMode.READ_WRITE, 4 * first, 4L * count)
+						.order(ByteOrder.nativeOrder()).asIntBuffer();
+				sums[s] = channel.map(FileChannel.MapMode.READ_WRITE, hitsBytes + 8 * first, 8L * count)
+						.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+			}
+		}
+		finally {
+			// the mappings stay valid once the file is closed
+			raf.close();
+		}
+		
+		file.delete();
+	}
+	
+	@Override
+	CellFormat format() {
+		return CellFormat.STANDARD;
+	}
+	
+	@Override
+	int size() {
+		return size;
+	}
+	
+	@Override
+	void hit(int i, double colorIndex) {
+		int s = i >>> SEGMENT_BITS;
+		int j = i & SEGMENT_MASK;
+		
+		int h = hits[s].get(j);
+		
+		// the count saturates at MAX_INT_HITS, after wich the square stops changing
+		if(h < MAX_INT_HITS) {
+			hits[s].put(j, ++h);
+			sums[s].put(j, sums[s].get(j) + colorIndex);
+			
+			if(h > maxHits) {
+				maxHits = h;
+			}
+		}
+	}
+	
+	@Override
+	long hits(int i) {
+		return hits[i >>> SEGMENT_BITS].get(i & SEGMENT_MASK);
+	}
+	
+	@Override
+	double colorIndexSum(int i) {
+		return sums[i >>> SEGMENT_BITS].get(i & SEGMENT_MASK);
+	}
+	
+	@Override
+	void add(int i, long hits, double colorIndexSum) {
+		int s = i >>> SEGMENT_BITS;
+		int j = i & SEGMENT_MASK;
+		
+		long n = this.hits[s].get(j) + hits;
+		int h = (int)Math.min(n, MAX_INT_HITS);
+		this.hits[s].put(j, h);
+		sums[s].put(j, saturatedSum(sums[s].get(j) + colorIndexSum, n));
+		maxHits = Math.max(maxHits, h);
+	}
+	
+	@Override
+	void clear() {
+		int[] zeroHits = new int[1 << 12];
+		double[] zeroSums = new double[1 << 12];
+		
+		for (int s = 0; s < hits.length; s++) {
+			IntBuffer h = hits[s].duplicate();
+			DoubleBuffer d = sums[s].duplicate();
+			
+			while(h.hasRemaining()) {
+				int length = Math.min(zeroHits.length, h.remaining());
+				h.put(zeroHits, 0, length);
+				d.put(zeroSums, 0, length);
+			}
+		}
+		maxHits = 0;
+	}
+	
+	/**
+	 * Copies the storage in a new temporary file of the same directory
+	 * @throws IllegalStateException if the new file can't be created or mapped
+	 */
+	@Override
+	CellStorage copy() {
+		try {
+			MappedCellStorage copy = new MappedCellStorage(directory, size);
+			
+			for (int s = 0; s < hits.length; s++) {
+				copy.hits[s].put(hits[s].duplicate());
+				copy.sums[s].put(sums[s].duplicate());
+			}
+			copy.maxHits = maxHits;
+			
+			return copy;
+		}
+		catch(IOException e) {
+			throw new IllegalStateException("Cannot map the copy of the accumulator: " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * The storage is too large to be copied, so the FlameAccumulator reads it directly
+	 */
+	@Override
+	CellStorage forAccumulator() {
+		return this;
+	}
+}
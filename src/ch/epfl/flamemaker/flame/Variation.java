@@ -13,73 +13,19 @@ import ch.epfl.flamemaker.geometry2d.*;
  * A specific Transformation wich can be : 
  * Linear, Sinusoidal, Spherical, Swirl, Horseshoe or Bubble
  */
-public abstract class Variation implements Transformation {
+public final class Variation implements Transformation {
     
 	/**
 	 * The list of all the Variations possible
 	 */
 	public final static List<Variation> ALL_VARIATIONS =
             Arrays.asList(
-            		new Variation(0, "Linear") {
-
-    					@Override
-    					public Point transformPoint(Point p) {
-    						return new Point(p.x() , p.y());
-    					}
-            		},
-            				
-            		new Variation(1, "Sinusoidal") {
-
-    					@Override
-    					public Point transformPoint(Point p) {
-    						return new Point(Math.sin(p.x()) , Math.sin(p.y()));
-    					}
-            		},
-            		
-            		 new Variation(2, "Spherical") {
-
-    					@Override
-    					public Point transformPoint(Point p) {
-    						double rSquared = p.r()*p.r();
-    						
-    						return new Point(p.x()/(rSquared) , p.y()/(rSquared));
-    					}
-            		 },
-            		 
-            		 new Variation(3, "Swirl") {
-            			 
-            			@Override
-            			public Point transformPoint(Point p) {
-            				double x = p.x();
-            				double y = p.y();
-            				double r = p.r();
-            				double rSquared = r*r;
-            				
-            				return new Point(x*Math.sin(rSquared) - y*Math.cos(rSquared) , x*Math.cos(rSquared) + y*Math.sin(rSquared));
-            			}
-            		 },
-            		 
-            		 new Variation(4, "Horseshoe") {
-            			
-            			@Override
-            			public Point transformPoint(Point p) {
-            				double x = p.x();
-            				double y = p.y();
-            				double r = p.r();
-            				
-            				return new Point((x - y)*(x + y) / r , 2*x*y / r);
-            			}
-            		 },
-            		 
-            		 new Variation(5, "Bubble") {
-
-            			@Override
-            			public Point transformPoint(Point p) {
-            				double rSquared = p.r()*p.r();
-            				
-            				return new Point(4*p.x()/(rSquared + 4) , 4*p.y()/(rSquared + 4));
-            			} 
-            		 }
+            		new Variation(0, "Linear"),
+            		new Variation(1, "Sinusoidal"),
+            		new Variation(2, "Spherical"),
+            		new Variation(3, "Swirl"),
+            		new Variation(4, "Horseshoe"),
+            		new Variation(5, "Bubble")
             			);
 	
 	private final String name;
@@ -110,5 +56,77 @@ public abstract class Variation implements Transformation {
     }
 
     @Override
-    abstract public Point transformPoint(Point p);
+    public Point transformPoint(Point p) {
+    	double[] result = new double[2];
+    	transformPoint(p.x(), p.y(), result);
+    	
+    	return new Point(result[0], result[1]);
+    }
+    
+    @Override
+    public void transformPoint(double x, double y, double[] result) {
+    	apply(index, x, y, result);
+    }
+    
+    /**
+     * Transforms the point (x,y) by the Variation at given index, with primitive values only: 
+     * the only place where the formulas of the Variations are written
+     * @param index the index of the Variation in the list
+     * @param x the x coordinate of the point to transform
+     * @param y the y coordinate of the point to transform
+     * @param result the array in wich the x and y coordinates of the transformed point are written
+     * @throws IllegalArgumentException if there is no Variation at given index
+     */
+    public static void apply(int index, double x, double y, double[] result) {
+    	switch (index) {
+    	case 0: { // Linear
+    		result[0] = x;
+    		result[1] = y;
+    		break;
+    	}
+    	
+    	case 1: { // Sinusoidal
+    		result[0] = Math.sin(x);
+    		result[1] = Math.sin(y);
+    		break;
+    	}
+    	
+    	case 2: { // Spherical
+    		double rSquared = x*x + y*y;
+    		
+    		result[0] = x/rSquared;
+    		result[1] = y/rSquared;
+    		break;
+    	}
+    	
+    	case 3: { // Swirl
+    		double rSquared = x*x + y*y;
+    		double sin = Math.sin(rSquared);
+    		double cos = Math.cos(rSquared);
+    		
+    		result[0] = x*sin - y*cos;
+    		result[1] = x*cos + y*sin;
+    		break;
+    	}
+    	
+    	case 4: { // Horseshoe
+    		double r = Math.sqrt(x*x + y*y);
+    		
+    		result[0] = (x - y)*(x + y) / r;
+    		result[1] = 2*x*y / r;
+    		break;
+    	}
+    	
+    	case 5: { // Bubble
+    		double rSquared = x*x + y*y;
+    		
+    		result[0] = 4*x/(rSquared + 4);
+    		result[1] = 4*y/(rSquared + 4);
+    		break;
+    	}
+    	
+    	default:
+    		throw new IllegalArgumentException("Unknown variation: " + index);
+    	}
+    }
 }
@@ -92,6 +92,13 @@ public final class AffineTransformation implements Transformation {
 		return new AffineTransformation(1, 0, 0, sy, 1, 0);
 	}
 	
+	/**
+	 * @return the six values of the matrix, in the order a, b, c, d, e, f
+	 */
+	public double[] coefficients() {
+		return new double[] {a, b, c, d, e, f};
+	}
+	
 	/**
 	 * @return the x coordinate of the translation (3rd value in the matrix)
 	 */
@@ -111,6 +118,12 @@ public final class AffineTransformation implements Transformation {
 		return new Point(a*p.x() + b*p.y() + c, d*p.x() + e*p.y() + f);
 	}
 	
+	@Override
+	public void transformPoint(double x, double y, double[] result) {
+		result[0] = a*x + b*y + c;
+		result[1] = d*x + e*y + f;
+	}
+	
 	/**
 	 * Composes an Affine Transformation with another
 	 * @param that the function to compose this one with
@@ -99,7 +99,17 @@ public final class Rectangle {
 	 * @return true if and only if the point is contained in the Rectangle
 	 */
 	public boolean contains(Point p) {
-		return p.x() >= left() && p.x() < right() && p.y() >= bottom() && p.y() < top();
+		return contains(p.x(), p.y());
+	}
+	
+	/**
+	 * Looks if the point (x,y) is contained in the Rectangle
+	 * @param x the x coordinate of the point
+	 * @param y the y coordinate of the point
+	 * @return true if and only if the point is contained in the Rectangle
+	 */
+	public boolean contains(double x, double y) {
+		return x >= left() && x < right() && y >= bottom() && y < top();
 	}
 	
 	/**
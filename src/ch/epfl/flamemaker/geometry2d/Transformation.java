@@ -16,4 +16,13 @@ public interface Transformation {
 	 * @return the point transformed
 	 */
 	public Point transformPoint(Point p);
+	
+	/**
+	 * Transforms the point (x,y) by the Transformation without allocating any Point
+	 * @param x the x coordinate of the point to transform
+	 * @param y the y coordinate of the point to transform
+	 * @param result the array in wich the x and y coordinates of the transformed point are written, 
+	 * at index 0 and 1
+	 */
+	public void transformPoint(double x, double y, double[] result);
 }
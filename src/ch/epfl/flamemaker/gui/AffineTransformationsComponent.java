@@ -26,7 +26,7 @@ public final class AffineTransformationsComponent extends JComponent {
 		builder.addObserver(new Observer() {
 			
 			@Override
-			public void updateFractal() {
+			public void updateFractal(int generation) {
 				repaint();
 			}
 		});
@@ -205,7 +205,7 @@ public final class AffineTransformationsComponent extends JComponent {
 		builder.addObserver(new Observer() {
 			
 			@Override
-			public void updateFractal() {
+			public void updateFractal(int generation) {
 				repaint();
 			}
 		});
@@ -3,7 +3,11 @@ package ch.epfl.flamemaker.gui;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.swing.JComponent;
 
@@ -15,18 +19,54 @@ public final class FlameBuilderPreviewComponent extends JComponent {
 	public final static int PREFERRED_WIDTH = 400;
 	public final static int PREFERRED_HEIGHT = 200;
 	
-	private final Color background;
-	private final Palette palette;
+	// the relative change of the normalization denominator above wich the whole image is recolored
+	private final static double RECOLOR_THRESHOLD = 0.02;
 	
-	private FlameAccumulator.Builder accuBuilder;
+	private Color background;
+	private Palette palette;
+	
+	// the snapshot to display, or null before the first one
+	private FlameAccumulator accumulator;
+	
+	/* the images reused by the repaints, one per size of snapshots, so that a progressive render
+	reuses the images of its coarse levels and of its full size level instead of reallocating them */
+	private final Map<Dimension, BufferedImage> images = new LinkedHashMap<Dimension, BufferedImage>(16, 0.75f, true) {
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Dimension, BufferedImage> eldest) {
+			return size() > PreviewRenderer.LEVELS;
+		}
+	};
+	
+	// the image of the last repaint and the array of its pixels, in wich the snapshots are rendered directly
+	private BufferedImage image;
+	private int[] pixels;
+	
+	// the snapshot and the colors the image was last rendered with
+	private FlameAccumulator renderedAccumulator;
+	private Palette renderedPalette;
+	private Color renderedBackground;
+	
+	// the largest number of hits normalizing the intensities of the pixels, set at the last full rendering
+	private long renderedMaxHits;
 	
 
-	public FlameBuilderPreviewComponent(FlameAccumulator.Builder b, Color backg, Palette p) {
-		accuBuilder = b;
+	public FlameBuilderPreviewComponent(Color backg, Palette p) {
 		background = backg;
 		palette = p;
 	}
 	
+	public void setColors(Palette p, Color backg) {
+		palette = p;
+		background = backg;
+		repaint();
+	}
+	
+	public void setAccumulator(FlameAccumulator a) {
+		accumulator = a;
+		repaint();
+	}
+	
 	@Override
 	public Dimension getPreferredSize() {
 		return new Dimension(PREFERRED_WIDTH, PREFERRED_HEIGHT);
@@ -36,19 +76,55 @@ public final class FlameBuilderPreviewComponent extends JComponent {
 	public void paintComponent(Graphics g0) {
 		Graphics2D g2D = (Graphics2D) g0;
 		
-		// Creates a buffered image
-		BufferedImage bImage = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+		if(accumulator == null) {
+			return;
+		}
+		
+		int width = accumulator.width();
+		int height = accumulator.height();
 		
-		FlameAccumulator accumulator = accuBuilder.build();
-		// Fills in the image with the right colors, packed in an Integer
-		for (int i = 0; i < accumulator.height(); i++) {
-			for (int j = 0; j < accumulator.width(); j++) {
-				Color c = accumulator.color(palette, background, j, i);
-				bImage.setRGB(j, i, c.asPackedRGB());
+		// Switches to the image of the size of the snapshot if the size changed, allocating it only the first time
+		if(image == null || image.getWidth() != width || image.getHeight() != height) {
+			Dimension size = new Dimension(width, height);
+			image = images.get(size);
+			if(image == null) {
+				image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+				images.put(size, image);
 			}
+			pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+			renderedAccumulator = null;
+		}
+		
+		// Recolors the whole image if the colors or the normalization changed, else only the squares hit since the last rendering
+		if(renderedAccumulator == null || palette != renderedPalette || background != renderedBackground || normalizationChanged()) {
+			accumulator.renderInto(palette, background, pixels);
+			renderedMaxHits = accumulator.maxHits();
+		}
+		else if(accumulator != renderedAccumulator) {
+			accumulator.renderChangesInto(palette, background, pixels, renderedAccumulator, renderedMaxHits);
+		}
+		renderedAccumulator = accumulator;
+		renderedPalette = palette;
+		renderedBackground = background;
+		
+		// Draws the image, upsampling the snapshots of the coarse levels of a progressive render
+		if(width != getWidth() || height != getHeight()) {
+			g2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		}
+		g2D.drawImage(image, 0, 0, getWidth(), getHeight(), null);
+	}
+	
+	/**
+	 * @return true if the denominator of the intensities, log(maxHits + 1), changed by more than 
+	 * RECOLOR_THRESHOLD since the last full rendering, or if one of them has no hits
+	 */
+	private boolean normalizationChanged() {
+		long maxHits = accumulator.maxHits();
+		if(renderedMaxHits <= 0 || maxHits <= 0) {
+			return true;
 		}
 		
-		// Draws the image
-		g2D.drawImage(bImage, 0, 0, null);
+		double rendered = Math.log(renderedMaxHits + 1);
+		return Math.abs(Math.log(maxHits + 1) - rendered) > RECOLOR_THRESHOLD * rendered;
 	}
 }
@@ -6,6 +6,7 @@
 package ch.epfl.flamemaker.gui;
 
 import java.awt.BorderLayout;
+import java.awt.Dimension;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -13,6 +14,7 @@ import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -24,11 +26,13 @@ import javax.swing.*;
 import javax.swing.LayoutStyle.ComponentPlacement;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 import ch.epfl.flamemaker.color.*;
 import ch.epfl.flamemaker.flame.*;
 import ch.epfl.flamemaker.geometry2d.*;
 import ch.epfl.flamemaker.gui.ObservableFlameBuilder.Observer;
+import ch.epfl.flamemaker.io.Scene;
 
 public final class FlameMakerGUI implements ActionListener{
 	private static final double TRANSLATION_STEP = 0.2;
@@ -36,23 +40,35 @@ public final class FlameMakerGUI implements ActionListener{
 	private static final double SCALING_STEP = 1.1;
 	private static final double SHEAR_STEP = 0.1;
 	
+	// the time between two repaints of the fractal, in milliseconds: at most 30 frames per second
+	private static final int REPAINT_INTERVAL = 1000 / 30;
+	
+	// the time without edits of the fractal after wich its rendering restarts, in milliseconds
+	private static final int EDIT_COALESCING_DELAY = 100;
+	
 	private static final java.awt.Color OFF_WHITE = new java.awt.Color(245, 245, 245);
 	
 	private ObservableFlameBuilder flameBuilder;
 	private Color background;
 	private Palette palette;
+	private List<Color> paletteColors;
 	private Rectangle frame;
 	private int density;
 	
 	private Timer timer;
+	
+	/* restarts the building process once the edits of the fractal stop for EDIT_COALESCING_DELAY, 
+	the render of the generation of the fractal it started being cancelled at the first edit */
+	private Timer editTimer;
+	private int renderedGeneration;
 
-	/* Since we repaint the FlameBuilder Component with a timer, we need its informations, 
-	the accumulator and the flame that is currently built. */ 
+	/* The fractal is computed by the renderer in the background, 
+	the timer repaints the FlameBuilder Component with the snapshots it publishes. */ 
 	private FlameBuilderPreviewComponent fBuilderComponent;
 	private JProgressBar progressBar;
 	
-	private FlameAccumulator.Builder accuBuilder;
-	private Flame actualFlame;
+	private final PreviewRenderer renderer = new PreviewRenderer(ComputePool.shared());
+	private FlameAccumulator displayedSnapshot;
 	
 	// a set to store the observators of changing fractal
 	private final Set<ChangeFractalObserver> changeFractalObserverSet = new HashSet<ChangeFractalObserver>();
@@ -69,7 +85,8 @@ public final class FlameMakerGUI implements ActionListener{
 		background = Color.BLACK;
 		
 		// initialising palette
-		palette = new InterpolatedPalette(Arrays.asList(Color.RED, Color.GREEN, Color.BLUE));
+		paletteColors = Arrays.asList(Color.RED, Color.GREEN, Color.BLUE);
+		palette = new InterpolatedPalette(paletteColors);
 		
 		// initialising frame
 		frame = new Rectangle(new Point(-0.25, 0), 5, 4);
@@ -77,55 +94,77 @@ public final class FlameMakerGUI implements ActionListener{
 		// initialising density
 		density = 50;
 		
-		// initialising the accumulator with FBuilderComponent's preferred dimensions
-		int accuWidth = FlameBuilderPreviewComponent.PREFERRED_WIDTH;
-		int accuHeight = FlameBuilderPreviewComponent.PREFERRED_HEIGHT;
-		double ratio = ((double)accuWidth) / accuHeight;
-		accuBuilder = new FlameAccumulator.Builder(frame.expandToAspectRatio(ratio), accuWidth, accuHeight);
-		
-		/* initialising the FBuilderComponent with our Accumulator Builder, 
-		so that we can update the display from FlameMakerGUI */
-		fBuilderComponent = new FlameBuilderPreviewComponent(accuBuilder, background, palette);
+		/* initialising the FBuilderComponent, displaying the snapshots of the renderer
+		given by FlameMakerGUI */
+		fBuilderComponent = new FlameBuilderPreviewComponent(background, palette);
 		
 		// initialising a progress bar
 		progressBar = new JProgressBar(0, 100);
 		progressBar.setValue(0);
 		progressBar.setStringPainted(true);
 		
-		// initialising a timer, that will compute part of the fractal and refresh the display, every 10 ms
-		timer = new Timer(10, this);
-		timer.start();
+		// initialising a timer, that will refresh the display with the last snapshot of the renderer
+		timer = new Timer(REPAINT_INTERVAL, this);
+		
+		editTimer = new Timer(EDIT_COALESCING_DELAY, new ActionListener() {
+			
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if(flameBuilder.generation() != renderedGeneration) {
+					restartBuildingProcess();
+				}
+			}
+		});
+		editTimer.setRepeats(false);
 		
 		// an observer is necessary in order to update the fractal
 		flameBuilder.addObserver(new Observer() {
 			
 			@Override
-			public void updateFractal() {
-				restartBuildingProcess();
+			public void updateFractal(int generation) {
+				scheduleBuildingProcess(generation);
 			}
 		});
 	}
 	
 	/**
-	 * Restarts the building process. Does nothing if the fractal display doesn't fit in the window
-	 * (width or height <= 0). Clears the accumulator, resizing it if necessary, and restarts the timer.
+	 * Restarts the building process. Stops it if the fractal display doesn't fit in the window
+	 * (width or height <= 0). Starts rendering the actual fractal in the background, 
+	 * with the size of the display, and restarts the timer.
 	 */
 	private void restartBuildingProcess() {
 		int width = fBuilderComponent.getWidth();
 		int height = fBuilderComponent.getHeight();
 		
+		editTimer.stop();
+		renderedGeneration = flameBuilder.generation();
+		
 		if(width <= 0 || height <= 0) {
+			renderer.cancel();
 			timer.stop();
 		}
 		
 		else {
 			double ratio = ((double)width) / height;
 			
-			accuBuilder.clear(frame.expandToAspectRatio(ratio), fBuilderComponent.getWidth(), fBuilderComponent.getHeight());
+			renderer.render(flameBuilder.build(), frame.expandToAspectRatio(ratio), width, height, density);
 			timer.restart();
 		}
 	}
 	
+	/**
+	 * Schedules the building process after an edit of the fractal. The render of an older generation 
+	 * is cancelled at once, and the building process restarts when no edit came for EDIT_COALESCING_DELAY, 
+	 * so that a burst of edits restarts it only once.
+	 * @param generation the generation of the edited fractal
+	 */
+	private void scheduleBuildingProcess(int generation) {
+		if(generation != renderedGeneration) {
+			renderer.cancel();
+			editTimer.restart();
+		}
+	}
+	
 	/**
 	 * Changes the actual fractal to another, doing all the changes needed and notifying all the observers
 	 * @param newFlame the new fractal
@@ -148,8 +187,8 @@ public final class FlameMakerGUI implements ActionListener{
 		flameBuilder.addObserver(new Observer() {
 			
 			@Override
-			public void updateFractal() {
-				restartBuildingProcess();
+			public void updateFractal(int generation) {
+				scheduleBuildingProcess(generation);
 			}
 		});
 		
@@ -161,6 +200,36 @@ public final class FlameMakerGUI implements ActionListener{
 		restartBuildingProcess();
 	}
 	
+	/**
+	 * Changes the actual fractal, palette and background to the ones of a Scene
+	 * @param scene the new scene
+	 */
+	private void changeScene(Scene scene) {
+		changeColors(scene.paletteColors(), scene.background());
+		changeFractal(scene.flame(), scene.frame(), scene.density());
+	}
+	
+	/**
+	 * Changes the palette and the background. The hits of the fractal don't depend on them, 
+	 * so the snapshot displayed is only recolored, in parallel, and the building process goes on.
+	 * @param newPaletteColors the colors of the new palette
+	 * @param newBackground the new background
+	 * @throws IllegalArgumentException if there is less than 2 colors in the palette
+	 */
+	private void changeColors(List<Color> newPaletteColors, Color newBackground) {
+		palette = new InterpolatedPalette(newPaletteColors);
+		paletteColors = newPaletteColors;
+		background = newBackground;
+		fBuilderComponent.setColors(palette, background);
+	}
+	
+	/**
+	 * @return the actual fractal, frame, density, palette and background as a Scene
+	 */
+	private Scene scene() {
+		return new Scene(flameBuilder.build(), frame, density, paletteColors, background);
+	}
+	
 	/**
 	 * Changes the actual fractal to "shark-fin" fractal
 	 */
@@ -219,22 +288,28 @@ public final class FlameMakerGUI implements ActionListener{
 
 	@Override
 	public void actionPerformed(ActionEvent e) {
-		// Builds the fractal to display if the building process just started
-		if(accuBuilder.buildingPercent() == 0) {
-			actualFlame = flameBuilder.build();
+		// If the building failed, the timer stops and the progress bar tells why
+		Throwable failure = renderer.failure();
+		if(failure != null) {
+			timer.stop();
+			progressBar.setString("Failed: " + failure);
+			return;
 		}
 		
-		// Computes a part of the fractal, then repaints the fractal display
-		boolean b = actualFlame.computePart(density * fBuilderComponent.getWidth() * fBuilderComponent.getHeight(), accuBuilder);
-		int percentage = accuBuilder.buildingPercent();
+		// Reads the progress first, so that the snapshot is at least as recent
+		int percentage = renderer.percent();
+		FlameAccumulator snapshot = renderer.snapshot();
+		
+		// Repaints the fractal display only if the renderer published a new snapshot
+		if(snapshot != displayedSnapshot) {
+			displayedSnapshot = snapshot;
+			fBuilderComponent.setAccumulator(snapshot);
+		}
 		progressBar.setValue(percentage);
 		progressBar.setString("Loading... " + percentage + "%");
-		fBuilderComponent.repaint();
 		
-		/* If the building is finished, the timer stops and the accumulator builder percentage 
-		 is put to zero */ 
-		if(b) {
-			accuBuilder.setBuildingPercentToZero();
+		// If the building is finished, the timer stops
+		if(percentage == 100) {
 			timer.stop();
 			progressBar.setString("Done !");
 		}
@@ -285,6 +360,9 @@ public final class FlameMakerGUI implements ActionListener{
 		mainPanel.setBackground(OFF_WHITE);
 		mainPanel.pack();
 		mainPanel.setVisible(true);
+		
+		// the display has its size once the window is visible
+		restartBuildingProcess();
 	}
 
 	private interface SelectedTransfoObserver {
@@ -1006,6 +1084,8 @@ public final class FlameMakerGUI implements ActionListener{
 		final JComboBox<String> comboBox = new JComboBox<String>(fractalNames);
 		
 		fractalPresetSelector.add(comboBox, BorderLayout.LINE_END);
+		fractalPresetSelector.add(createSceneFilePanel(), BorderLayout.LINE_START);
+		fractalPresetSelector.add(createColorsPanel(), BorderLayout.CENTER);
 		
 		comboBox.addActionListener(new ActionListener() {
 			
@@ -1035,4 +1115,180 @@ public final class FlameMakerGUI implements ActionListener{
 		fractalPresetSelector.setBackground(OFF_WHITE);
 		return fractalPresetSelector;
 	}
+	
+	/**
+	 * Creates the buttons opening and saving scene files,
+	 * in the binary format for .scene files and in the text format otherwise
+	 * @return the panel of the buttons
+	 */
+	private JPanel createSceneFilePanel() {
+		final JPanel sceneFilePanel = new JPanel();
+		final JFileChooser chooser = new JFileChooser();
+		chooser.setFileFilter(new FileNameExtensionFilter("Scenes (.scene, .txt)", "scene", "txt"));
+		
+		JButton openButton = new JButton("Open...");
+		JButton saveButton = new JButton("Save...");
+		
+		openButton.addActionListener(new ActionListener() {
+			
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if(chooser.showOpenDialog(sceneFilePanel) == JFileChooser.APPROVE_OPTION) {
+					try {
+						changeScene(Scene.load(chooser.getSelectedFile()));
+					}
+					catch(IOException | IllegalArgumentException ex) {
+						JOptionPane.showMessageDialog(sceneFilePanel, ex.getMessage(), "Can't open the scene", JOptionPane.ERROR_MESSAGE);
+					}
+				}
+			}
+		});
+		
+		saveButton.addActionListener(new ActionListener() {
+			
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if(chooser.showSaveDialog(sceneFilePanel) == JFileChooser.APPROVE_OPTION) {
+					try {
+						scene().save(chooser.getSelectedFile());
+					}
+					catch(IOException ex) {
+						JOptionPane.showMessageDialog(sceneFilePanel, ex.getMessage(), "Can't save the scene", JOptionPane.ERROR_MESSAGE);
+					}
+				}
+			}
+		});
+		
+		sceneFilePanel.add(openButton);
+		sceneFilePanel.add(saveButton);
+		sceneFilePanel.setBackground(OFF_WHITE);
+		return sceneFilePanel;
+	}
+	
+	/**
+	 * Creates the buttons editing the colors: the background, the colors of the palette, 
+	 * and the buttons adding a color at the end of the palette and removing the last one. 
+	 * Editing the colors only recolors the fractal display, see {@link #changeColors}.
+	 * @return the panel of the buttons
+	 */
+	private JPanel createColorsPanel() {
+		final JPanel colorsPanel = new JPanel();
+		colorsPanel.setBackground(OFF_WHITE);
+		fillColorsPanel(colorsPanel);
+		
+		// a new scene brings its own colors
+		addChangeFractalObservers(new ChangeFractalObserver() {
+			
+			@Override
+			public void updateChangeFractal() {
+				fillColorsPanel(colorsPanel);
+			}
+		});
+		
+		return colorsPanel;
+	}
+	
+	/**
+	 * Fills the colors panel with the buttons of the actual colors
+	 * @param colorsPanel the panel to fill
+	 */
+	private void fillColorsPanel(final JPanel colorsPanel) {
+		colorsPanel.removeAll();
+		
+		colorsPanel.add(new JLabel("Background"));
+		colorsPanel.add(createColorButton(background, new ActionListener() {
+			
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				Color c = chooseColor(colorsPanel, "Background", background);
+				if(c != null) {
+					changeColors(paletteColors, c);
+					fillColorsPanel(colorsPanel);
+				}
+			}
+		}));
+		
+		colorsPanel.add(new JLabel("Palette"));
+		for (int i = 0; i < paletteColors.size(); i++) {
+			final int index = i;
+			colorsPanel.add(createColorButton(paletteColors.get(i), new ActionListener() {
+				
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					Color c = chooseColor(colorsPanel, "Palette color " + (index + 1), paletteColors.get(index));
+					if(c != null) {
+						List<Color> colors = new ArrayList<Color>(paletteColors);
+						colors.set(index, c);
+						changeColors(colors, background);
+						fillColorsPanel(colorsPanel);
+					}
+				}
+			}));
+		}
+		
+		JButton addButton = new JButton("+");
+		JButton removeButton = new JButton("-");
+		
+		// a palette interpolates at least two colors
+		removeButton.setEnabled(paletteColors.size() > 2);
+		
+		addButton.addActionListener(new ActionListener() {
+			
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				List<Color> colors = new ArrayList<Color>(paletteColors);
+				colors.add(colors.get(colors.size() - 1));
+				changeColors(colors, background);
+				fillColorsPanel(colorsPanel);
+			}
+		});
+		
+		removeButton.addActionListener(new ActionListener() {
+			
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				List<Color> colors = new ArrayList<Color>(paletteColors);
+				colors.remove(colors.size() - 1);
+				changeColors(colors, background);
+				fillColorsPanel(colorsPanel);
+			}
+		});
+		
+		colorsPanel.add(addButton);
+		colorsPanel.add(removeButton);
+		colorsPanel.revalidate();
+		colorsPanel.repaint();
+	}
+	
+	/**
+	 * Creates a button filled with a color
+	 * @param c the color of the button
+	 * @param listener the action of the button
+	 * @return the created button
+	 */
+	private static JButton createColorButton(Color c, ActionListener listener) {
+		JButton button = new JButton();
+		button.setPreferredSize(new Dimension(24, 24));
+		button.setBackground(new java.awt.Color(c.asPackedRGB()));
+		button.setContentAreaFilled(false);
+		button.setOpaque(true);
+		button.addActionListener(listener);
+		return button;
+	}
+	
+	/**
+	 * Asks the user for a color
+	 * @param parent the component the dialog is shown over
+	 * @param title the title of the dialog
+	 * @param initial the color initially selected
+	 * @return the chosen color, or null if the dialog was cancelled
+	 */
+	private static Color chooseColor(JComponent parent, String title, Color initial) {
+		java.awt.Color chosen = JColorChooser.showDialog(parent, title, new java.awt.Color(initial.asPackedRGB()));
+		if(chosen == null) {
+			return null;
+		}
+		
+		return new Color(Color.sRGBDecode(chosen.getRed(), 255), Color.sRGBDecode(chosen.getGreen(), 255), Color.sRGBDecode(chosen.getBlue(), 255));
+	}
 }
\ No newline at end of file
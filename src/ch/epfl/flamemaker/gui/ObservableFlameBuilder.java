@@ -10,6 +10,13 @@ import ch.epfl.flamemaker.geometry2d.AffineTransformation;
 public class ObservableFlameBuilder {
 	private final Flame.Builder builder;
 	private HashSet<Observer> observers = new HashSet<Observer>();
+	
+	// the number of changes of the fractal, tagging the notifications
+	private int generation = 0;
+	
+	// the depth of the nested transactions, and the generation notified last
+	private int transactionDepth = 0;
+	private int notifiedGeneration = 0;
 
 	public ObservableFlameBuilder(Flame f) {
 		builder = new Flame.Builder(f);
@@ -30,9 +37,50 @@ public class ObservableFlameBuilder {
 		observers.clear();
 	}
 	
+	/**
+	 * @return the number of changes of the fractal since the creation of the builder
+	 */
+	public int generation() {
+		return generation;
+	}
+	
+	/**
+	 * Begins a transaction: the changes made until the matching {@link #endTransaction()} 
+	 * are notified once, at its end. Transactions can be nested, only the outer one notifies.
+	 */
+	public void beginTransaction() {
+		transactionDepth++;
+	}
+	
+	/**
+	 * Ends a transaction, notifying the observers once if the fractal changed during the outer one
+	 * @throws IllegalStateException if no transaction was begun
+	 */
+	public void endTransaction() {
+		if(transactionDepth == 0) {
+			throw new IllegalStateException("No transaction to end");
+		}
+		
+		transactionDepth--;
+		if(transactionDepth == 0 && notifiedGeneration != generation) {
+			notifyObservers();
+		}
+	}
+	
+	/**
+	 * Counts a change of the fractal and notifies it, unless a transaction is running
+	 */
+	private void changed() {
+		generation++;
+		if(transactionDepth == 0) {
+			notifyObservers();
+		}
+	}
+	
 	private void notifyObservers() {
+		notifiedGeneration = generation;
 		for (Observer o : observers) {
-			o.updateFractal();
+			o.updateFractal(generation);
 		}
 	}
 	
@@ -49,7 +97,7 @@ public class ObservableFlameBuilder {
 	 */
 	public void addTransformation(FlameTransformation transformation) {
 		builder.addTransformation(transformation);
-		notifyObservers();
+		changed();
 	}
 	
 	/**
@@ -70,7 +118,7 @@ public class ObservableFlameBuilder {
 	 */
 	public void setAffineTransformation(int index, AffineTransformation newTransfo) {		
 		builder.setAffineTransformation(index, newTransfo);
-		notifyObservers();
+		changed();
 	}
 	
 	/**
@@ -95,7 +143,56 @@ public class ObservableFlameBuilder {
 	 */
 	public void setVariationWeight(int index, Variation variation, double newWeight) {
 		builder.setVariationWeight(index, variation, newWeight);
-		notifyObservers();
+		changed();
+	}
+	
+	/**
+	 * Gives the weight of the FlameTransformation.Builder at given index
+	 * @param index the index of the FlameTransformation.Builder
+	 * @throws IndexOutOfBoundsException if the index is greater or equal 
+	 * to the amount of transformations or smaller than zero
+	 * @return the weight found
+	 */
+	public double transformationWeight(int index) {
+		return builder.transformationWeight(index);
+	}
+	
+	/**
+	 * Sets the weight of the FlameTransformation.Builder at given index
+	 * @param index the index of the FlameTransformation.Builder
+	 * @param newWeight the new weight to set to
+	 * @throws IndexOutOfBoundsException if the index is greater or equal 
+	 * to the amount of transformations or smaller than zero
+	 * @throws IllegalArgumentException if the new weight is negative, infinite or NaN
+	 */
+	public void setTransformationWeight(int index, double newWeight) {
+		builder.setTransformationWeight(index, newWeight);
+		changed();
+	}
+	
+	/**
+	 * Gives the color index given to the FlameTransformation.Builder at given index
+	 * @param index the index of the FlameTransformation.Builder
+	 * @throws IndexOutOfBoundsException if the index is greater or equal 
+	 * to the amount of transformations or smaller than zero
+	 * @return the color index, or NaN if it depends on the place of the transformation
+	 */
+	public double colorIndex(int index) {
+		return builder.colorIndex(index);
+	}
+	
+	/**
+	 * Gives a color index to the FlameTransformation.Builder at given index
+	 * @param index the index of the FlameTransformation.Builder
+	 * @param newColorIndex the new color index, between 0 and 1, 
+	 * or NaN to use the color index given by the place of the transformation
+	 * @throws IndexOutOfBoundsException if the index is greater or equal 
+	 * to the amount of transformations or smaller than zero
+	 * @throws IllegalArgumentException if the color index isn't between 0 and 1
+	 */
+	public void setColorIndex(int index, double newColorIndex) {
+		builder.setColorIndex(index, newColorIndex);
+		changed();
 	}
 	
 	/**
@@ -106,7 +203,7 @@ public class ObservableFlameBuilder {
 	 */
 	public void removeTransformation(int index) {
 		builder.removeTransformation(index);
-		notifyObservers();
+		changed();
 	}
 	
 	/**
@@ -117,7 +214,11 @@ public class ObservableFlameBuilder {
 	}
 	
 	public interface Observer {
-		public void updateFractal();
+		/**
+		 * Updates the observer after a change of the fractal, or after the changes of a transaction
+		 * @param generation the number of changes of the fractal, increasing with each change
+		 */
+		public void updateFractal(int generation);
 	}
 }
 
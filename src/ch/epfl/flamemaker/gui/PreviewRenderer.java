@@ -0,0 +1,233 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.gui;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+
+import ch.epfl.flamemaker.flame.*;
+import ch.epfl.flamemaker.geometry2d.*;
+import ch.epfl.flamemaker.random.RandomSource;
+import ch.epfl.flamemaker.random.Xoshiro256Random;
+
+/**
+ * Computes the preview of the GUI out of the Event Dispatch Thread. A background thread runs
+ * the fractal in steps of one percent, with one chain per worker of the pool, and publishes
+ * snapshots of the accumulator that the EDT reads when it repaints.
+ * The render is progressive: coarse accumulators of the same frame, 1/8, 1/4 then 1/2 of the size, 
+ * get a few hits per square each and are published first, for a readable image within milliseconds. 
+ * The full-size accumulator is only published once it has as many hits per square, 
+ * the display upsampling the best snapshot in the meantime.
+ * The accumulators are in the PREVIEW format, 4 bytes per square, and the number of chains is bounded, 
+ * so that a large window on a machine with many cores doesn't need one full size accumulator per worker. 
+ * Each new render cancels the previous one, whose chains stop within a few thousand hits. 
+ * A render that fails, out of memory for example, stops and its failure is kept for the GUI.
+ */
+final class PreviewRenderer {
+	// the number of steps of a render, one per percent
+	private static final int STEPS = 100;
+	
+	// the smallest time between two snapshots, in nanoseconds, the sum of the chains costing a pass on the accumulators
+	private static final long SNAPSHOT_INTERVAL = 40000000L;
+	
+	// the scales of the coarse levels computed before the full size one, from the coarsest
+	private static final int[] COARSE_SCALES = {8, 4, 2};
+	
+	// the number of sizes of the snapshots of a render: the coarse levels and the full size
+	static final int LEVELS = COARSE_SCALES.length + 1;
+	
+	// the number of hits per square of a coarse level, and of the full size one before it is published
+	private static final int COARSE_DENSITY = 4;
+	
+	// the largest number of chains of a render, each one hitting its own accumulator
+	private static final int MAX_CHAINS = 8;
+	
+	private final ForkJoinPool pool;
+	private final ExecutorService worker;
+	
+	/* the number of the actual render, the older ones stopping within a few thousand hits, 
+	changed under the lock of the renderer but read without it by the chains */
+	private volatile int generation = 0;
+	
+	private volatile FlameAccumulator snapshot;
+	private volatile int percent = 0;
+	private volatile Throwable failure;
+	
+	/**
+	 * Creates a PreviewRenderer
+	 * @param pool the pool running the chains
+	 */
+	PreviewRenderer(ForkJoinPool pool) {
+		this.pool = pool;
+		worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Preview renderer");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+	
+	/**
+	 * Starts rendering a fractal, cancelling the actual render. The last snapshot stays available
+	 * until the new render publishes its first one.
+	 * @param flame the fractal to render
+	 * @param frame the frame of the plane to render
+	 * @param width the width of the accumulator
+	 * @param height the height of the accumulator
+	 * @param density a coefficient that increases the amount of hits
+	 */
+	synchronized void render(final Flame flame, final Rectangle frame, final int width, final int height, final int density) {
+		final int g = ++generation;
+		percent = 0;
+		failure = null;
+		
+		worker.execute(new Runnable() {
+			
+			@Override
+			public void run() {
+				try {
+					compute(g, flame, frame, width, height, density);
+				}
+				catch(RuntimeException | OutOfMemoryError e) {
+					fail(g, e);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Cancels the actual render, whose chains stop within a few thousand hits
+	 */
+	synchronized void cancel() {
+		generation++;
+	}
+	
+	/**
+	 * @return the last published snapshot of the accumulator, or null if none was published
+	 */
+	FlameAccumulator snapshot() {
+		return snapshot;
+	}
+	
+	/**
+	 * @return the percentage of the actual render that is computed
+	 */
+	int percent() {
+		return percent;
+	}
+	
+	/**
+	 * @return the error that stopped the actual render, or null if it didn't fail
+	 */
+	Throwable failure() {
+		return failure;
+	}
+	
+	/**
+	 * Runs a render in the background thread
+	 * @param g the number of the render
+	 */
+	private void compute(final int g, Flame flame, Rectangle frame, int width, int height, int density) {
+		if(!isActual(g)) {
+			return;
+		}
+		
+		// the chains of an older render stop as soon as a new one starts
+		ChainSet.Cancellation cancellation = new ChainSet.Cancellation() {
+			
+			@Override
+			public boolean isCancelled() {
+				return !isActual(g);
+			}
+		};
+		
+		RandomSource random = new Xoshiro256Random();
+		int chainCount = Math.min(pool.getParallelism(), MAX_CHAINS);
+		
+		// the coarse levels, each published as soon as it is computed
+		for (int scale : COARSE_SCALES) {
+			if(!isActual(g)) {
+				return;
+			}
+			
+			int coarseWidth = (width + scale - 1) / scale;
+			int coarseHeight = (height + scale - 1) / scale;
+			FlameAccumulator.Builder coarse = new FlameAccumulator.Builder(frame, coarseWidth, coarseHeight, CellFormat.PREVIEW);
+			ChainSet coarseChains = new ChainSet(flame, coarse, chainCount, random);
+			
+			if(!coarseChains.run((long)coarseWidth * coarseHeight * COARSE_DENSITY, pool, cancellation)) {
+				return;
+			}
+			publish(g, coarseChains.snapshot(), 0);
+		}
+		
+		FlameAccumulator.Builder builder = new FlameAccumulator.Builder(frame, width, height, CellFormat.PREVIEW);
+		ChainSet chains = new ChainSet(flame, builder, chainCount, random);
+		long iterations = (long)width * height * density;
+		
+		// the full size level replaces the finest coarse one once it has as many hits per square
+		long coarseIterations = (long)width * height * COARSE_DENSITY;
+		long lastSnapshot = System.nanoTime() - SNAPSHOT_INTERVAL;
+		
+		for (int step = 1; step <= STEPS; step++) {
+			if(!isActual(g)) {
+				return;
+			}
+			
+			if(!chains.run(iterations * step / STEPS - iterations * (step - 1) / STEPS, pool, cancellation)) {
+				return;
+			}
+			
+			FlameAccumulator s = null;
+			long now = System.nanoTime();
+			if(step == STEPS || (now - lastSnapshot >= SNAPSHOT_INTERVAL && chains.hits() >= coarseIterations)) {
+				s = chains.snapshot();
+				lastSnapshot = now;
+			}
+			publish(g, s, step);
+		}
+	}
+	
+	/**
+	 * Publishes the progress of a render, if it is still the actual one
+	 * @param g the number of the render
+	 * @param s the new snapshot, or null to keep the last one
+	 * @param step the number of computed steps
+	 */
+	private synchronized void publish(int g, FlameAccumulator s, int step) {
+		if(g == generation) {
+			if(s != null) {
+				snapshot = s;
+			}
+			percent = step * 100 / STEPS;
+		}
+	}
+	
+	/**
+	 * Keeps the failure of a render, if it is still the actual one
+	 * @param g the number of the render
+	 * @param e the error that stopped it
+	 */
+	private synchronized void fail(int g, Throwable e) {
+		if(g == generation) {
+			failure = e;
+		}
+	}
+	
+	/**
+	 * Checks without locking if a render is still the actual one, called by the chains every few thousand hits
+	 * @param g the number of the render
+	 * @return true if no render started since
+	 */
+	private boolean isActual(int g) {
+		return g == generation;
+	}
+}
@@ -7,6 +7,7 @@ package ch.epfl.flamemaker.ifs;
 
 import java.util.*;
 import ch.epfl.flamemaker.geometry2d.*;
+import ch.epfl.flamemaker.random.*;
 
 public final class IFS {
 	private final List<AffineTransformation> list = new ArrayList<AffineTransformation>();
@@ -17,29 +18,85 @@ public final class IFS {
 		}
 	}
 	
+	/* 
+	 * Statics methods, to creates preset fractals
+	 */
+	public static IFS createSierpinskiTriangle() {
+		ArrayList<AffineTransformation> list = new ArrayList<AffineTransformation>();
+		list.add(new AffineTransformation(0.5, 0, 0, 0, 0.5, 0));
+		list.add(new AffineTransformation(0.5, 0, 0.5, 0, 0.5, 0));
+		list.add(new AffineTransformation(0.5, 0, 0.25, 0, 0.5, 0.5));
+		
+		return new IFS(list);
+	}
+	
+	public static IFS createFern() {
+		ArrayList<AffineTransformation> list = new ArrayList<AffineTransformation>();
+		list.add(new AffineTransformation(0, 0, 0, 0, 0.16, 0));
+		list.add(new AffineTransformation(0.2, -0.26, 0, 0.23, 0.22, 1.6));
+		list.add(new AffineTransformation(-0.15, 0.28, 0, 0.26, 0.24, 0.44));
+		list.add(new AffineTransformation(0.85, 0.04, 0, -0.04, 0.85, 1.6));
+		
+		return new IFS(list);
+	}
+	
+	public static IFS createSierpinskiCarpet() {
+		ArrayList<AffineTransformation> list = new ArrayList<AffineTransformation>();
+		double oneThird = 1.0/3.0;
+		list.add(new AffineTransformation(oneThird, 0, 0, 0, oneThird, 0));
+		list.add(new AffineTransformation(oneThird, 0, oneThird, 0, oneThird, 0));
+		list.add(new AffineTransformation(oneThird, 0, 0, 0, oneThird, oneThird));
+		list.add(new AffineTransformation(oneThird, 0, 2*oneThird, 0, oneThird, 0));
+		list.add(new AffineTransformation(oneThird, 0, 0, 0, oneThird, 2*oneThird));
+		list.add(new AffineTransformation(oneThird, 0, oneThird, 0, oneThird, 2*oneThird));
+		list.add(new AffineTransformation(oneThird, 0, 2*oneThird, 0, oneThird, oneThird));
+		list.add(new AffineTransformation(oneThird, 0, 2*oneThird, 0, oneThird, 2*oneThird));
+		
+		return new IFS(list);
+	}
+	
+	public static IFS createDragon() {
+		ArrayList<AffineTransformation> list = new ArrayList<AffineTransformation>();
+		list.add(new AffineTransformation(0.5, 0.5, 0.125, -0.5, 0.5, 0.625));
+		list.add(new AffineTransformation(0.5, 0.5, -0.125, -0.5, 0.5, 0.375));
+		
+		return new IFS(list);
+	}
+	
+	public static IFS createTree() {
+		ArrayList<AffineTransformation> list = new ArrayList<AffineTransformation>();
+		list.add(new AffineTransformation(0.42, 0.42, 0, -0.42, 0.42, 0.2));
+		list.add(new AffineTransformation(0.42, -0.42, 0, 0.42, 0.42, 0.2));
+		list.add(new AffineTransformation(0.1, 0, 0, 0, 0.1, 0.2));
+		list.add(new AffineTransformation(0, 0, 0, 0, 0.5, 0));
+		
+		return new IFS(list);
+	}
+	
 	public IFSAccumulator compute(Rectangle frame, int width, int height, int density) {
 		int iterations = width*height*density;
 		
 		IFSAccumulatorBuilder builder = new IFSAccumulatorBuilder(frame, width, height);
 		
-		Point p = new Point(0,0);
-		Random random = new Random();
+		// the coordinates of the actual point, transformed in place
+		double[] p = new double[2];
+		RandomSource random = new Xoshiro256Random();
 		
 		// 20 first hits don't count
 		for (int i = 0; i < 20; i++) {
 			// a random numer of transformation from the list
 			int j = random.nextInt(list.size());
-			p = list.get(j).transformPoint(p);
+			list.get(j).transformPoint(p[0], p[1], p);
 		}
 		
 		// next hits do count
 		for (int i = 20; i < iterations; i++) {
 			// a random numer of transformation from the list
 			int j = random.nextInt(list.size());
-			p = list.get(j).transformPoint(p);
+			list.get(j).transformPoint(p[0], p[1], p);
 			
 			// hitting the accumulator
-			builder.hit(p);
+			builder.hit(p[0], p[1]);
 		}
 		
 		return builder.build();
@@ -11,6 +11,7 @@ public class IFSAccumulatorBuilder {
 	private boolean[][] accumulator;
 	private final AffineTransformation toAccumulator;
 	private final Rectangle frame;
+	private final double[] square = new double[2];
 	
 	public IFSAccumulatorBuilder(Rectangle frame, int width, int height) 
 		throws IllegalArgumentException {
@@ -36,10 +37,14 @@ public class IFSAccumulatorBuilder {
 	}
 	
 	public void hit(Point p) {
-		if(frame.contains(p)) {
-			Point newP = toAccumulator.transformPoint(p);
-			int x = (int)Math.floor(newP.x());
-			int y = (int)Math.floor(newP.y());
+		hit(p.x(), p.y());
+	}
+	
+	public void hit(double pX, double pY) {
+		if(frame.contains(pX, pY)) {
+			toAccumulator.transformPoint(pX, pY, square);
+			int x = (int)Math.floor(square[0]);
+			int y = (int)Math.floor(square[1]);
 			
 			// hits the square with the y-axis reversed
 			accumulator[x][accumulator[0].length - 1 - y] = true; 
@@ -0,0 +1,440 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import ch.epfl.flamemaker.color.*;
+import ch.epfl.flamemaker.flame.*;
+import ch.epfl.flamemaker.geometry2d.*;
+
+/**
+ * Imports the flames of flam3 XML files (.flame) as Scenes. The files are streamed,
+ * each flame being handed over as soon as its end tag is read, so that a file of any size
+ * is imported in constant memory.
+ * <ul>
+ * <li>the coefficients "xx xy yx yy ox oy" of an xform give the AffineTransformation
+ * (xx, yx, ox, xy, yy, oy)</li>
+ * <li>the attributes of an xform named as a {@link Variation}, in lower case, give its weights,
+ * the other variations being reported as unsupported and ignored</li>
+ * <li>the size, center and scale of a flame give the frame, its quality the density,
+ * and its colors the palette</li>
+ * </ul>
+ * The rotation, the post and final transformations and the built-in palettes aren't supported either,
+ * and are reported with the unsupported variations.
+ */
+public final class Flam3Importer {
+	/**
+	 * The density of the flames without quality
+	 */
+	public static final int DEFAULT_DENSITY = 50;
+	
+	// the attributes of an xform which aren't variations
+	private static final Set<String> XFORM_ATTRIBUTES = new HashSet<String>(Arrays.asList(
+			"weight", "color", "symmetry", "color_speed", "animate", "coefs", "post", "opacity",
+			"var_color", "chaos", "name", "plotmode", "motion_frequency", "motion_function"));
+	
+	private static final List<Color> DEFAULT_PALETTE = Arrays.asList(Color.RED, Color.GREEN, Color.BLUE);
+	
+	private static final String IDENTITY_COEFS = "1 0 0 1 0 0";
+	
+	private Flam3Importer() {}
+	
+	/**
+	 * Receives the imported flames
+	 */
+	public interface Handler {
+		/**
+		 * Receives a flame. When several files are imported at once,
+		 * it is called by several threads at the same time.
+		 * @param file the file of the flame
+		 * @param name the name of the flame, or null if it has none
+		 * @param scene the imported flame
+		 * @param unsupported the variations and features of the flame that were ignored, sorted
+		 */
+		public void flame(File file, String name, Scene scene, Set<String> unsupported);
+		
+		/**
+		 * Receives the error that stopped the import of a file,
+		 * after the flames of the file read before it
+		 * @param file the file that couldn't be imported
+		 * @param e the error
+		 */
+		public void failed(File file, Exception e);
+	}
+	
+	/**
+	 * Imports the flames of a file, in order
+	 * @param file the flam3 file
+	 * @param handler the handler receiving the flames
+	 * @return the number of imported flames
+	 * @throws IOException if the file can't be read, or isn't well-formed XML
+	 * @throws IllegalArgumentException if a flame isn't valid
+	 */
+	public static int importFile(File file, Handler handler) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		XMLStreamReader reader = null;
+		try {
+			reader = factory().createXMLStreamReader(in);
+			return importFlames(file, reader, handler);
+		}
+		catch(XMLStreamException e) {
+			throw new IOException(file + ": " + e.getMessage(), e);
+		}
+		finally {
+			if(reader != null) {
+				try {
+					reader.close();
+				}
+				catch(XMLStreamException e) {
+					// the stream is closed below
+				}
+			}
+			in.close();
+		}
+	}
+	
+	/**
+	 * Imports the flames of several files in parallel in the shared pool
+	 * @param files the flam3 files
+	 * @param handler the handler receiving the flames and the errors
+	 * @return the number of files that couldn't be imported
+	 */
+	public static int importAll(List<File> files, Handler handler) {
+		return importAll(files, handler, ComputePool.shared());
+	}
+	
+	/**
+	 * Imports the flames of several files in parallel, each file being read by a task of the pool.
+	 * The flames of a file are received in order, but the files are imported in any order.
+	 * @param files the flam3 files
+	 * @param handler the handler receiving the flames and the errors
+	 * @param pool the pool reading the files
+	 * @return the number of files that couldn't be imported
+	 */
+	public static int importAll(List<File> files, final Handler handler, ForkJoinPool pool) {
+		final AtomicInteger failures = new AtomicInteger();
+		List<RecursiveAction> tasks = new ArrayList<RecursiveAction>(files.size());
+		
+		for (final File file : files) {
+			RecursiveAction task = new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				protected void compute() {
+					try {
+						importFile(file, handler);
+					}
+					catch(IOException | IllegalArgumentException e) {
+						failures.incrementAndGet();
+						handler.failed(file, e);
+					}
+				}
+			};
+			
+			pool.execute(task);
+			tasks.add(task);
+		}
+		
+		for (RecursiveAction task : tasks) {
+			task.join();
+		}
+		
+		return failures.get();
+	}
+	
+	/**
+	 * @return a factory of readers that don't resolve external entities
+	 */
+	private static XMLInputFactory factory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+	
+	/**
+	 * Streams the flame elements of a document, at any depth
+	 * @param file the file of the document
+	 * @param reader the reader of the document
+	 * @param handler the handler receiving the flames
+	 * @return the number of imported flames
+	 * @throws XMLStreamException if the document isn't well-formed
+	 * @throws IllegalArgumentException if a flame isn't valid
+	 */
+	private static int importFlames(File file, XMLStreamReader reader, Handler handler) throws XMLStreamException {
+		int count = 0;
+		
+		while(reader.hasNext()) {
+			if(reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("flame")) {
+				int line = reader.getLocation().getLineNumber();
+				String name = reader.getAttributeValue(null, "name");
+				
+				try {
+					Set<String> unsupported = new TreeSet<String>();
+					Scene scene = flame(reader, unsupported);
+					handler.flame(file, name, scene, unsupported);
+					count++;
+				}
+				catch(IllegalArgumentException e) {
+					throw new IllegalArgumentException(file + ":" + line + ": flame " + name + ": " + e.getMessage(), e);
+				}
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Reads a flame element, the reader being on its start tag, until its end tag
+	 * @param reader the reader of the document
+	 * @param unsupported the set receiving the ignored variations and features
+	 * @return the flame as a Scene
+	 * @throws XMLStreamException if the document isn't well-formed
+	 * @throws IllegalArgumentException if the flame isn't valid
+	 */
+	private static Scene flame(XMLStreamReader reader, Set<String> unsupported) throws XMLStreamException {
+		double[] size = numbers(reader, "size", 2);
+		double[] center = numbers(reader, "center", 2);
+		double scale = numbers(reader, "scale", 1)[0];
+		if(!(scale > 0)) {
+			throw new IllegalArgumentException("Negative or null scale");
+		}
+		Rectangle frame = new Rectangle(new Point(center[0], center[1]), size[0] / scale, size[1] / scale);
+		
+		String quality = reader.getAttributeValue(null, "quality");
+		int density = quality == null ? DEFAULT_DENSITY : Math.max(1, (int) Math.round(Double.parseDouble(quality)));
+		
+		Color background = Color.BLACK;
+		if(reader.getAttributeValue(null, "background") != null) {
+			double[] b = numbers(reader, "background", 3);
+			background = new Color(b[0], b[1], b[2]);
+		}
+		
+		String rotate = reader.getAttributeValue(null, "rotate");
+		if(rotate != null && Double.parseDouble(rotate) != 0) {
+			unsupported.add("rotate");
+		}
+		if(reader.getAttributeValue(null, "palette") != null) {
+			unsupported.add("built-in palette");
+		}
+		
+		List<FlameTransformation> transformations = new ArrayList<FlameTransformation>();
+		Color[] colors = new Color[256];
+		
+		int depth = 1;
+		while(depth > 0) {
+			int event = reader.next();
+			
+			if(event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+			else if(event == XMLStreamConstants.START_ELEMENT) {
+				String element = reader.getLocalName();
+				
+				if(element.equals("xform")) {
+					transformations.add(transformation(reader, unsupported));
+					depth++;
+				}
+				else if(element.equals("finalxform")) {
+					unsupported.add("finalxform");
+					depth++;
+				}
+				else if(element.equals("color")) {
+					int index = (int) numbers(reader, "index", 1)[0];
+					if(index < 0 || index >= colors.length) {
+						throw new IllegalArgumentException("Invalid color index: " + index);
+					}
+					double[] rgb = numbers(reader, "rgb", 3);
+					colors[index] = new Color(rgb[0] / 255, rgb[1] / 255, rgb[2] / 255);
+					depth++;
+				}
+				else if(element.equals("palette")) {
+					String format = reader.getAttributeValue(null, "format");
+					// reads the text up to the end tag
+					palette(reader.getElementText(), format != null && format.equalsIgnoreCase("RGBA") ? 8 : 6, colors);
+				}
+				else {
+					depth++;
+				}
+			}
+		}
+		
+		if(transformations.isEmpty()) {
+			throw new IllegalArgumentException("No xform");
+		}
+		
+		List<Color> palette = new ArrayList<Color>();
+		for (Color c : colors) {
+			if(c != null) {
+				palette.add(c);
+			}
+		}
+		if(palette.size() < 2) {
+			palette = DEFAULT_PALETTE;
+		}
+		
+		return new Scene(new Flame(transformations), frame, density, palette, background);
+	}
+	
+	/**
+	 * Reads an xform element, the reader being on its start tag
+	 * @param reader the reader of the document
+	 * @param unsupported the set receiving the ignored variations and features
+	 * @return the transformation
+	 * @throws IllegalArgumentException if the xform isn't valid
+	 */
+	private static FlameTransformation transformation(XMLStreamReader reader, Set<String> unsupported) {
+		double[] c = numbers(reader, "coefs", 6);
+		AffineTransformation affine = new AffineTransformation(c[0], c[2], c[4], c[1], c[3], c[5]);
+		
+		String post = reader.getAttributeValue(null, "post");
+		if(post != null && !Arrays.equals(numbers(reader, "post", 6), numbers(IDENTITY_COEFS, 6))) {
+			unsupported.add("post");
+		}
+		
+		double weight = numbers(reader, "weight", 1)[0];
+		String color = reader.getAttributeValue(null, "color");
+		double colorIndex = color == null ? Double.NaN : Double.parseDouble(color.trim().split("\\s+")[0]);
+		
+		// variations, with their parameters among the unknown attributes
+		double[] variationWeights = new double[Variation.ALL_VARIATIONS.size()];
+		Map<String, String> unknown = new HashMap<String, String>();
+		
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			String attribute = reader.getAttributeLocalName(i);
+			if(XFORM_ATTRIBUTES.contains(attribute)) {
+				continue;
+			}
+			
+			Variation variation = variation(attribute);
+			if(variation != null) {
+				variationWeights[variation.index()] = Double.parseDouble(reader.getAttributeValue(i).trim());
+			}
+			else {
+				unknown.put(attribute, reader.getAttributeValue(i).trim());
+			}
+		}
+		
+		for (Map.Entry<String, String> e : unknown.entrySet()) {
+			if(!isParameter(e.getKey(), unknown.keySet()) && !isZero(e.getValue())) {
+				unsupported.add(e.getKey());
+			}
+		}
+		
+		return new FlameTransformation(affine, variationWeights, weight, colorIndex);
+	}
+	
+	/**
+	 * Reads the hexadecimal colors of a palette element
+	 * @param text the text of the element
+	 * @param digits the number of digits of a color, the red, green and blue ones being the first
+	 * @param colors the array receiving the colors
+	 * @throws IllegalArgumentException if the text isn't valid
+	 */
+	private static void palette(String text, int digits, Color[] colors) {
+		String hex = text.replaceAll("\\s+", "");
+		if(hex.length() % digits != 0 || hex.length() / digits > colors.length) {
+			throw new IllegalArgumentException("Invalid palette of " + hex.length() + " digits");
+		}
+		
+		for (int i = 0; i < hex.length() / digits; i++) {
+			int rgb = Integer.parseInt(hex.substring(i * digits, i * digits + 6), 16);
+			colors[i] = new Color((rgb >> 16) / 255.0, ((rgb >> 8) & 0xff) / 255.0, (rgb & 0xff) / 255.0);
+		}
+	}
+	
+	/**
+	 * @param attribute the name of an attribute of an xform
+	 * @return the variation of the same name, or null if it isn't supported
+	 */
+	private static Variation variation(String attribute) {
+		for (Variation v : Variation.ALL_VARIATIONS) {
+			if(v.name().equalsIgnoreCase(attribute)) {
+				return v;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @param attribute the name of an unknown attribute of an xform
+	 * @param unknown the names of all the unknown attributes of the xform
+	 * @return true if the attribute is a parameter of another unknown attribute, as blob_low of blob
+	 */
+	private static boolean isParameter(String attribute, Set<String> unknown) {
+		for (int i = attribute.lastIndexOf('_'); i > 0; i = attribute.lastIndexOf('_', i - 1)) {
+			if(unknown.contains(attribute.substring(0, i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static boolean isZero(String value) {
+		try {
+			return Double.parseDouble(value) == 0;
+		}
+		catch(NumberFormatException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Parses the numbers of an attribute
+	 * @param reader the reader, on the start tag of the element
+	 * @param attribute the name of the attribute
+	 * @param count the number of numbers
+	 * @return the numbers
+	 * @throws IllegalArgumentException if the attribute is missing or doesn't have count numbers
+	 */
+	private static double[] numbers(XMLStreamReader reader, String attribute, int count) {
+		String value = reader.getAttributeValue(null, attribute);
+		if(value == null) {
+			throw new IllegalArgumentException("Missing attribute " + attribute + " of " + reader.getLocalName());
+		}
+		
+		try {
+			return numbers(value, count);
+		}
+		catch(IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid attribute " + attribute + " of " + reader.getLocalName() + ": " + value, e);
+		}
+	}
+	
+	private static double[] numbers(String value, int count) {
+		String[] fields = value.trim().split("\\s+");
+		if(fields.length != count) {
+			throw new IllegalArgumentException("Expected " + count + " numbers");
+		}
+		
+		double[] numbers = new double[count];
+		for (int i = 0; i < count; i++) {
+			numbers[i] = Double.parseDouble(fields[i]);
+		}
+		return numbers;
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ch.epfl.flamemaker.color.*;
+import ch.epfl.flamemaker.flame.*;
+import ch.epfl.flamemaker.geometry2d.*;
+
+/**
+ * Everything needed to render a Flame: its transformations, the frame of the plane to render,
+ * the density, the colors of an interpolated palette and the background color
+ */
+public final class Scene {
+	private final Flame flame;
+	private final Rectangle frame;
+	private final int density;
+	private final List<Color> paletteColors;
+	private final Color background;
+	
+	/**
+	 * Creates a Scene
+	 * @param flame the Flame to render
+	 * @param frame the frame of the plane to render
+	 * @param density a coefficient that increases the amount of hits
+	 * @param paletteColors the colors the palette interpolates between
+	 * @param background the background color
+	 * @throws IllegalArgumentException if the density is smaller or equal to zero,
+	 * or if there is less than 2 colors
+	 */
+	public Scene(Flame flame, Rectangle frame, int density, List<Color> paletteColors, Color background) {
+		if(density <= 0) {
+			throw new IllegalArgumentException("Negative or null density");
+		}
+		if(paletteColors.size() < 2) {
+			throw new IllegalArgumentException("There must be at least two colors");
+		}
+		
+		this.flame = flame;
+		this.frame = frame;
+		this.density = density;
+		this.paletteColors = Collections.unmodifiableList(new ArrayList<Color>(paletteColors));
+		this.background = background;
+	}
+	
+	/**
+	 * @return the Flame to render
+	 */
+	public Flame flame() {
+		return flame;
+	}
+	
+	/**
+	 * @return the frame of the plane to render
+	 */
+	public Rectangle frame() {
+		return frame;
+	}
+	
+	/**
+	 * @return the density
+	 */
+	public int density() {
+		return density;
+	}
+	
+	/**
+	 * @return the colors the palette interpolates between, unmodifiable
+	 */
+	public List<Color> paletteColors() {
+		return paletteColors;
+	}
+	
+	/**
+	 * @return a new palette interpolating between the colors of the Scene
+	 */
+	public Palette palette() {
+		return new InterpolatedPalette(paletteColors);
+	}
+	
+	/**
+	 * @return the background color
+	 */
+	public Color background() {
+		return background;
+	}
+	
+	/**
+	 * Reads a Scene from a file, in the binary format if its extension is .scene,
+	 * or in the text format otherwise
+	 * @param file the file to read
+	 * @return the Scene of the file
+	 * @throws IOException if the file can't be read
+	 * @throws IllegalArgumentException if the file isn't a valid Scene
+	 * @see SceneFormat
+	 * @see SceneText
+	 */
+	public static Scene load(File file) throws IOException {
+		return isBinary(file) ? SceneFormat.load(file) : SceneText.load(file);
+	}
+	
+	/**
+	 * Writes the Scene in a file, in the binary format if its extension is .scene,
+	 * or in the text format otherwise
+	 * @param file the file to write, replaced if it exists
+	 * @throws IOException if the file can't be written
+	 */
+	public void save(File file) throws IOException {
+		if(isBinary(file)) {
+			SceneFormat.save(this, file);
+		}
+		else {
+			SceneText.save(this, file);
+		}
+	}
+	
+	/**
+	 * @param file a file
+	 * @return true if the extension of the file is the one of the binary format
+	 */
+	private static boolean isBinary(File file) {
+		return file.getName().toLowerCase().endsWith(SceneFormat.EXTENSION);
+	}
+}
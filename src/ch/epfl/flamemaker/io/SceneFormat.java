@@ -0,0 +1,275 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.epfl.flamemaker.color.*;
+import ch.epfl.flamemaker.flame.*;
+import ch.epfl.flamemaker.geometry2d.*;
+
+/**
+ * The binary format of a Scene, big-endian, every field at a fixed or computable offset
+ * so that a Scene can be read directly from a mapped file:
+ * <pre>
+ * 0   int     magic "FLMS"
+ * 4   short   version
+ * 6   short   number of variations v
+ * 8   int     density
+ * 12  int     number of palette colors c
+ * 16  int     number of transformations t
+ * 20  int     size of the Scene in bytes
+ * 24  double  center x, center y, width and height of the frame
+ * 56  double  red, green and blue of the background
+ * 80  double  red, green and blue of each palette color
+ * ... double  a, b, c, d, e, f, the v variation weights, the weight and the color index of each transformation
+ * </pre>
+ * A color index of NaN means the index given by the place of the transformation in the Flame.
+ */
+public final class SceneFormat {
+	/**
+	 * The extension of the files in the binary format
+	 */
+	public static final String EXTENSION = ".scene";
+	
+	/**
+	 * The version written by this class, the only one it reads
+	 */
+	public static final int VERSION = 1;
+	
+	static final int MAGIC = 0x464c4d53;
+	
+	// offsets of the fields of the header
+	static final int VERSION_OFFSET = 4;
+	static final int VARIATIONS_OFFSET = 6;
+	static final int DENSITY_OFFSET = 8;
+	static final int COLORS_OFFSET = 12;
+	static final int TRANSFORMATIONS_OFFSET = 16;
+	static final int SIZE_OFFSET = 20;
+	static final int FRAME_OFFSET = 24;
+	static final int HEADER_SIZE = 80;
+	
+	private static final int COLOR_SIZE = 3 * 8;
+	
+	private SceneFormat() {}
+	
+	/**
+	 * @param scene a Scene
+	 * @return the number of bytes of the Scene in the binary format
+	 */
+	public static int size(Scene scene) {
+		return size(scene.paletteColors().size(), scene.flame().transformationCount(), Variation.ALL_VARIATIONS.size());
+	}
+	
+	/**
+	 * Writes a Scene at the position of a buffer, and moves the position after it
+	 * @param scene the Scene to write
+	 * @param buffer the buffer receiving the Scene
+	 * @throws java.nio.BufferOverflowException if the buffer hasn't {@link #size(Scene)} bytes remaining
+	 */
+	public static void write(Scene scene, ByteBuffer buffer) {
+		List<Color> colors = scene.paletteColors();
+		Flame flame = scene.flame();
+		List<Variation> variations = Variation.ALL_VARIATIONS;
+		
+		ByteBuffer b = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		b.putInt(MAGIC);
+		b.putShort((short) VERSION);
+		b.putShort((short) variations.size());
+		b.putInt(scene.density());
+		b.putInt(colors.size());
+		b.putInt(flame.transformationCount());
+		b.putInt(size(scene));
+		
+		Rectangle frame = scene.frame();
+		b.putDouble(frame.center().x()).putDouble(frame.center().y());
+		b.putDouble(frame.width()).putDouble(frame.height());
+		putColor(b, scene.background());
+		
+		for (Color c : colors) {
+			putColor(b, c);
+		}
+		
+		for (int i = 0; i < flame.transformationCount(); i++) {
+			FlameTransformation transformation = flame.transformation(i);
+			for (double coefficient : transformation.affineTransformation().coefficients()) {
+				b.putDouble(coefficient);
+			}
+			for (Variation v : variations) {
+				b.putDouble(transformation.variationWeight(v));
+			}
+			b.putDouble(transformation.weight());
+			b.putDouble(transformation.colorIndex());
+		}
+		
+		buffer.position(b.position());
+	}
+	
+	/**
+	 * Reads the Scene at the position of a buffer, and moves the position after it.
+	 * The fields are read in place, without copying the bytes of the buffer.
+	 * @param buffer the buffer holding the Scene
+	 * @return the Scene
+	 * @throws IllegalArgumentException if the bytes aren't a valid Scene of this version
+	 */
+	public static Scene read(ByteBuffer buffer) {
+		ByteBuffer b = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		int start = b.position();
+		int size = checkedSize(b, start);
+		
+		int colorCount = b.getInt(start + COLORS_OFFSET);
+		int transformationCount = b.getInt(start + TRANSFORMATIONS_OFFSET);
+		int variationCount = Variation.ALL_VARIATIONS.size();
+		
+		b.position(start + FRAME_OFFSET);
+		Point center = new Point(b.getDouble(), b.getDouble());
+		Rectangle frame = new Rectangle(center, b.getDouble(), b.getDouble());
+		Color background = getColor(b);
+		
+		List<Color> colors = new ArrayList<Color>(colorCount);
+		for (int i = 0; i < colorCount; i++) {
+			colors.add(getColor(b));
+		}
+		
+		List<FlameTransformation> transformations = new ArrayList<FlameTransformation>(transformationCount);
+		for (int i = 0; i < transformationCount; i++) {
+			AffineTransformation affine = new AffineTransformation(
+					b.getDouble(), b.getDouble(), b.getDouble(), b.getDouble(), b.getDouble(), b.getDouble());
+			double[] variationWeights = new double[variationCount];
+			for (int v = 0; v < variationCount; v++) {
+				variationWeights[v] = b.getDouble();
+			}
+			transformations.add(new FlameTransformation(affine, variationWeights, b.getDouble(), b.getDouble()));
+		}
+		
+		buffer.position(start + size);
+		return new Scene(new Flame(transformations), frame, b.getInt(start + DENSITY_OFFSET), colors, background);
+	}
+	
+	/**
+	 * Reads a Scene from a file mapped in memory
+	 * @param file the file to read
+	 * @return the Scene of the file
+	 * @throws IOException if the file can't be read
+	 * @throws IllegalArgumentException if the file isn't a valid Scene, 
+	 * or if data follows the Scene, as in a library of several ones
+	 */
+	public static Scene load(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			Scene scene = read(buffer);
+			
+			if(buffer.hasRemaining()) {
+				throw new IllegalArgumentException("Invalid scene: " + buffer.remaining() 
+						+ " bytes after the scene, the file may be a scene library");
+			}
+			return scene;
+		}
+		finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Writes a Scene in a file
+	 * @param scene the Scene to write
+	 * @param file the file to write, replaced if it exists
+	 * @throws IOException if the file can't be written
+	 */
+	public static void save(Scene scene, File file) throws IOException {
+		FileChannel channel = new FileOutputStream(file).getChannel();
+		try {
+			write(scene, channel);
+		}
+		finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Writes a Scene at the position of a channel, as the next Scene of a library for example
+	 * @param scene the Scene to write
+	 * @param channel the channel receiving the Scene
+	 * @throws IOException if the channel can't be written
+	 */
+	public static void write(Scene scene, WritableByteChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(size(scene));
+		write(scene, buffer);
+		buffer.flip();
+		
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+	
+	/**
+	 * Checks the header of a Scene without reading the rest of it
+	 * @param buffer the buffer holding the Scene, in big-endian order
+	 * @param start the position of the Scene in the buffer
+	 * @return the size of the Scene in bytes
+	 * @throws IllegalArgumentException if the header isn't valid, or if the buffer ends before the Scene
+	 */
+	static int checkedSize(ByteBuffer buffer, int start) {
+		if(buffer.limit() - start < HEADER_SIZE) {
+			throw new IllegalArgumentException("Invalid scene: truncated header at " + start);
+		}
+		if(buffer.getInt(start) != MAGIC) {
+			throw new IllegalArgumentException("Invalid scene: no magic number at " + start);
+		}
+		
+		int version = buffer.getShort(start + VERSION_OFFSET);
+		if(version != VERSION) {
+			throw new IllegalArgumentException("Invalid scene: unsupported version " + version);
+		}
+		
+		int variationCount = buffer.getShort(start + VARIATIONS_OFFSET);
+		if(variationCount != Variation.ALL_VARIATIONS.size()) {
+			throw new IllegalArgumentException("Invalid scene: " + variationCount + " variations");
+		}
+		
+		int colorCount = buffer.getInt(start + COLORS_OFFSET);
+		int transformationCount = buffer.getInt(start + TRANSFORMATIONS_OFFSET);
+		int size = buffer.getInt(start + SIZE_OFFSET);
+		if(colorCount < 0 || transformationCount < 0
+				|| size != size(colorCount, transformationCount, variationCount)) {
+			throw new IllegalArgumentException("Invalid scene: inconsistent sizes at " + start);
+		}
+		if(buffer.limit() - start < size) {
+			throw new IllegalArgumentException("Invalid scene: truncated at " + start);
+		}
+		
+		return size;
+	}
+	
+	/**
+	 * @param colorCount the number of palette colors
+	 * @param transformationCount the number of transformations
+	 * @param variationCount the number of variations
+	 * @return the number of bytes of a Scene, or -1 if it doesn't fit in an int
+	 */
+	private static int size(int colorCount, int transformationCount, int variationCount) {
+		long size = HEADER_SIZE + (long) colorCount * COLOR_SIZE + (long) transformationCount * (8 + variationCount) * 8;
+		return size > Integer.MAX_VALUE ? -1 : (int) size;
+	}
+	
+	private static void putColor(ByteBuffer b, Color c) {
+		b.putDouble(c.red()).putDouble(c.green()).putDouble(c.blue());
+	}
+	
+	private static Color getColor(ByteBuffer b) {
+		return new Color(b.getDouble(), b.getDouble(), b.getDouble());
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import ch.epfl.flamemaker.geometry2d.*;
+
+/**
+ * A file of Scenes in the binary format of {@link SceneFormat}, one after the other,
+ * mapped in memory. Opening a library only walks through the headers, and the fields of the headers
+ * are read in place, so that a library can be scanned without decoding its Scenes.
+ */
+public final class SceneLibrary {
+	private final ByteBuffer buffer;
+	private final int[] offsets;
+	
+	/**
+	 * Creates a SceneLibrary
+	 * @param buffer the Scenes, in big-endian order
+	 * @param offsets the position of each Scene in the buffer
+	 */
+	private SceneLibrary(ByteBuffer buffer, int[] offsets) {
+		this.buffer = buffer;
+		this.offsets = offsets;
+	}
+	
+	/**
+	 * Maps a library file in memory and indexes its Scenes
+	 * @param file the library file
+	 * @return the library
+	 * @throws IOException if the file can't be read, or if it is larger than 2GB
+	 * @throws IllegalArgumentException if the file isn't a sequence of valid Scenes
+	 */
+	public static SceneLibrary open(File file) throws IOException {
+		MappedByteBuffer mapped;
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			if(channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Library larger than 2GB: " + file);
+			}
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally {
+			channel.close();
+		}
+		
+		return index(mapped);
+	}
+	
+	/**
+	 * Indexes the Scenes of a buffer, from its position to its limit
+	 * @param buffer the buffer holding the Scenes
+	 * @return the library of the Scenes, sharing the content of the buffer
+	 * @throws IllegalArgumentException if the bytes aren't a sequence of valid Scenes
+	 */
+	public static SceneLibrary index(ByteBuffer buffer) {
+		ByteBuffer b = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+		
+		int[] offsets = new int[16];
+		int count = 0;
+		int offset = 0;
+		while(offset < b.limit()) {
+			if(count == offsets.length) {
+				offsets = Arrays.copyOf(offsets, 2 * count);
+			}
+			offsets[count++] = offset;
+			offset += SceneFormat.checkedSize(b, offset);
+		}
+		
+		return new SceneLibrary(b, Arrays.copyOf(offsets, count));
+	}
+	
+	/**
+	 * Writes Scenes in a library file
+	 * @param scenes the Scenes to write, in order
+	 * @param file the file to write, replaced if it exists
+	 * @throws IOException if the file can't be written, or if it would be larger than 2GB
+	 */
+	public static void save(List<Scene> scenes, File file) throws IOException {
+		long size = 0;
+		for (Scene s : scenes) {
+			size += SceneFormat.size(s);
+		}
+		if(size > Integer.MAX_VALUE) {
+			throw new IOException("Library larger than 2GB: " + file);
+		}
+		
+		ByteBuffer b = ByteBuffer.allocate((int) size);
+		for (Scene s : scenes) {
+			SceneFormat.write(s, b);
+		}
+		b.flip();
+		
+		FileChannel channel = new FileOutputStream(file).getChannel();
+		try {
+			while(b.hasRemaining()) {
+				channel.write(b);
+			}
+		}
+		finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * @return the number of Scenes of the library
+	 */
+	public int size() {
+		return offsets.length;
+	}
+	
+	/**
+	 * Decodes a Scene of the library
+	 * @param index the index of the Scene
+	 * @return the Scene
+	 * @throws IndexOutOfBoundsException if the index is invalid
+	 */
+	public Scene scene(int index) {
+		ByteBuffer b = buffer.duplicate();
+		b.position(offset(index));
+		return SceneFormat.read(b);
+	}
+	
+	/**
+	 * @param index the index of a Scene
+	 * @return the density of the Scene, read in place
+	 * @throws IndexOutOfBoundsException if the index is invalid
+	 */
+	public int density(int index) {
+		return buffer.getInt(offset(index) + SceneFormat.DENSITY_OFFSET);
+	}
+	
+	/**
+	 * @param index the index of a Scene
+	 * @return the number of transformations of the Scene, read in place
+	 * @throws IndexOutOfBoundsException if the index is invalid
+	 */
+	public int transformationCount(int index) {
+		return buffer.getInt(offset(index) + SceneFormat.TRANSFORMATIONS_OFFSET);
+	}
+	
+	/**
+	 * @param index the index of a Scene
+	 * @return the number of palette colors of the Scene, read in place
+	 * @throws IndexOutOfBoundsException if the index is invalid
+	 */
+	public int colorCount(int index) {
+		return buffer.getInt(offset(index) + SceneFormat.COLORS_OFFSET);
+	}
+	
+	/**
+	 * @param index the index of a Scene
+	 * @return the frame of the Scene, read in place
+	 * @throws IndexOutOfBoundsException if the index is invalid
+	 */
+	public Rectangle frame(int index) {
+		int frame = offset(index) + SceneFormat.FRAME_OFFSET;
+		Point center = new Point(buffer.getDouble(frame), buffer.getDouble(frame + 8));
+		return new Rectangle(center, buffer.getDouble(frame + 16), buffer.getDouble(frame + 24));
+	}
+	
+	/**
+	 * @param index the index of a Scene
+	 * @return the position of the Scene in the buffer
+	 * @throws IndexOutOfBoundsException if the index is invalid
+	 */
+	private int offset(int index) {
+		if(index < 0 || index >= offsets.length) {
+			throw new IndexOutOfBoundsException("Invalid index: " + index);
+		}
+		return offsets[index];
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.epfl.flamemaker.color.*;
+import ch.epfl.flamemaker.flame.*;
+import ch.epfl.flamemaker.geometry2d.*;
+
+/**
+ * The text format of a Scene, one field per line, blank lines and lines starting with # being ignored:
+ * <pre>
+ * flame-scene 1
+ * frame centerX centerY width height
+ * density n
+ * background r g b
+ * color r g b
+ * transformation a b c d e f variations w1 ... w6 weight w [color index]
+ * </pre>
+ * with one color line per color of the palette, and one transformation line per transformation, in order.
+ * The numbers are written so that they are read back exactly.
+ */
+public final class SceneText {
+	private static final String MAGIC = "flame-scene";
+	
+	private SceneText() {}
+	
+	/**
+	 * Writes a Scene in the text format
+	 * @param scene the Scene to write
+	 * @param out the writer receiving the text
+	 * @throws IOException if the text can't be written
+	 */
+	public static void write(Scene scene, Writer out) throws IOException {
+		Rectangle frame = scene.frame();
+		Flame flame = scene.flame();
+		
+		StringBuilder text = new StringBuilder();
+		text.append(MAGIC).append(' ').append(SceneFormat.VERSION).append('\n');
+		text.append("frame ").append(frame.center().x()).append(' ').append(frame.center().y())
+				.append(' ').append(frame.width()).append(' ').append(frame.height()).append('\n');
+		text.append("density ").append(scene.density()).append('\n');
+		appendColor(text.append("background"), scene.background());
+		for (Color c : scene.paletteColors()) {
+			appendColor(text.append("color"), c);
+		}
+		
+		for (int i = 0; i < flame.transformationCount(); i++) {
+			FlameTransformation transformation = flame.transformation(i);
+			
+			text.append("transformation");
+			for (double coefficient : transformation.affineTransformation().coefficients()) {
+				text.append(' ').append(coefficient);
+			}
+			text.append(" variations");
+			for (Variation v : Variation.ALL_VARIATIONS) {
+				text.append(' ').append(transformation.variationWeight(v));
+			}
+			text.append(" weight ").append(transformation.weight());
+			if(!Double.isNaN(transformation.colorIndex())) {
+				text.append(" color ").append(transformation.colorIndex());
+			}
+			text.append('\n');
+		}
+		
+		out.write(text.toString());
+	}
+	
+	/**
+	 * Reads a Scene in the text format
+	 * @param in the reader of the text
+	 * @return the Scene
+	 * @throws IOException if the text can't be read
+	 * @throws IllegalArgumentException if the text isn't a valid Scene
+	 */
+	public static Scene read(Reader in) throws IOException {
+		BufferedReader reader = new BufferedReader(in);
+		
+		Rectangle frame = null;
+		int density = 0;
+		Color background = Color.BLACK;
+		List<Color> colors = new ArrayList<Color>();
+		List<FlameTransformation> transformations = new ArrayList<FlameTransformation>();
+		boolean versionRead = false;
+		
+		String line;
+		int number = 0;
+		while((line = reader.readLine()) != null) {
+			number++;
+			line = line.trim();
+			if(line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			
+			String[] fields = line.split("\\s+");
+			try {
+				if(!versionRead) {
+					if(fields.length != 2 || !fields[0].equals(MAGIC) || Integer.parseInt(fields[1]) != SceneFormat.VERSION) {
+						throw new IllegalArgumentException("Expected \"" + MAGIC + " " + SceneFormat.VERSION + "\"");
+					}
+					versionRead = true;
+					continue;
+				}
+				
+				switch (fields[0]) {
+				case "frame":
+					checkLength(fields, 5);
+					double[] f = numbers(fields, 1, 4);
+					frame = new Rectangle(new Point(f[0], f[1]), f[2], f[3]);
+					break;
+				
+				case "density":
+					checkLength(fields, 2);
+					density = Integer.parseInt(fields[1]);
+					break;
+				
+				case "background":
+					background = color(fields);
+					break;
+				
+				case "color":
+					colors.add(color(fields));
+					break;
+				
+				case "transformation":
+					transformations.add(transformation(fields));
+					break;
+				
+				default:
+					throw new IllegalArgumentException("Unknown field: " + fields[0]);
+				}
+			}
+			catch(IllegalArgumentException e) {
+				throw new IllegalArgumentException("Invalid scene, line " + number + ": " + e.getMessage(), e);
+			}
+		}
+		
+		if(frame == null) {
+			throw new IllegalArgumentException("Invalid scene: no frame");
+		}
+		
+		return new Scene(new Flame(transformations), frame, density, colors, background);
+	}
+	
+	/**
+	 * Reads a Scene from a file in the text format, encoded in UTF-8
+	 * @param file the file to read
+	 * @return the Scene of the file
+	 * @throws IOException if the file can't be read
+	 * @throws IllegalArgumentException if the file isn't a valid Scene
+	 */
+	public static Scene load(File file) throws IOException {
+		Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+		try {
+			return read(in);
+		}
+		finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Writes a Scene in a file in the text format, encoded in UTF-8
+	 * @param scene the Scene to write
+	 * @param file the file to write, replaced if it exists
+	 * @throws IOException if the file can't be written
+	 */
+	public static void save(Scene scene, File file) throws IOException {
+		Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+		try {
+			write(scene, out);
+		}
+		finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Parses a transformation line
+	 * @param fields the fields of the line
+	 * @return the described transformation
+	 */
+	private static FlameTransformation transformation(String[] fields) {
+		int variationCount = Variation.ALL_VARIATIONS.size();
+		int weightField = 8 + variationCount;
+		boolean colored = fields.length == weightField + 4;
+		
+		if(!(fields.length == weightField + 2 || colored)
+				|| !fields[7].equals("variations") || !fields[weightField].equals("weight")
+				|| (colored && !fields[weightField + 2].equals("color"))) {
+			throw new IllegalArgumentException("Expected \"transformation a b c d e f variations w1 ... w"
+					+ variationCount + " weight w [color index]\"");
+		}
+		
+		double[] c = numbers(fields, 1, 6);
+		double colorIndex = colored ? Double.parseDouble(fields[weightField + 3]) : Double.NaN;
+		
+		return new FlameTransformation(new AffineTransformation(c[0], c[1], c[2], c[3], c[4], c[5]),
+				numbers(fields, 8, variationCount), Double.parseDouble(fields[weightField + 1]), colorIndex);
+	}
+	
+	/**
+	 * Parses a color line
+	 * @param fields the fields of the line
+	 * @return the described color
+	 */
+	private static Color color(String[] fields) {
+		checkLength(fields, 4);
+		double[] c = numbers(fields, 1, 3);
+		return new Color(c[0], c[1], c[2]);
+	}
+	
+	/**
+	 * Parses consecutive numbers of a line
+	 * @param fields the fields of the line
+	 * @param first the position of the first number
+	 * @param count the number of numbers
+	 * @return the numbers
+	 * @throws IllegalArgumentException if there aren't enough fields or a field isn't a number
+	 */
+	private static double[] numbers(String[] fields, int first, int count) {
+		if(fields.length < first + count) {
+			throw new IllegalArgumentException("Expected " + count + " numbers after " + fields[0]);
+		}
+		
+		double[] numbers = new double[count];
+		for (int i = 0; i < count; i++) {
+			numbers[i] = Double.parseDouble(fields[first + i]);
+		}
+		return numbers;
+	}
+	
+	private static void checkLength(String[] fields, int length) {
+		if(fields.length != length) {
+			throw new IllegalArgumentException("Expected " + (length - 1) + " values after " + fields[0]);
+		}
+	}
+	
+	private static void appendColor(StringBuilder text, Color c) {
+		text.append(' ').append(c.red()).append(' ').append(c.green()).append(' ').append(c.blue()).append('\n');
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.output;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes an image file row by row through a large direct buffer and a FileChannel
+ */
+abstract class ChannelImageWriter implements Closeable {
+	// 1MB: a few hundred rows of a 4K image per write call
+	static final int BUFFER_SIZE = 1 << 20;
+	
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	
+	private final int width;
+	private final int height;
+	private int rowsWritten = 0;
+	
+	/**
+	 * Creates the file and writes its header
+	 * @param file the file to write, replaced if it exists
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @param header the header of the file, in ASCII
+	 * @throws IllegalArgumentException if width or height is smaller or equal to zero
+	 * @throws IOException if the file can't be created
+	 */
+	ChannelImageWriter(File file, int width, int height, String header) throws IOException {
+		this(file, width, height, header.getBytes(StandardCharsets.US_ASCII));
+	}
+	
+	/**
+	 * Creates the file and writes its binary header
+	 * @param file the file to write, replaced if it exists
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @param header the header of the file
+	 * @throws IllegalArgumentException if width or height is smaller or equal to zero
+	 * @throws IOException if the file can't be created
+	 */
+	ChannelImageWriter(File file, int width, int height, byte[] header) throws IOException {
+		if(width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Negative or null width or height");
+		}
+		
+		this.width = width;
+		this.height = height;
+		channel = new FileOutputStream(file).getChannel();
+		put(header, 0, header.length);
+	}
+	
+	/**
+	 * @return the width of the image
+	 */
+	public int width() {
+		return width;
+	}
+	
+	/**
+	 * @return the height of the image
+	 */
+	public int height() {
+		return height;
+	}
+	
+	/**
+	 * @return the number of rows written
+	 */
+	final int rowsWritten() {
+		return rowsWritten;
+	}
+	
+	/**
+	 * Counts rows about to be written
+	 * @param rows the number of rows
+	 * @throws IllegalStateException if the image would have more than height rows
+	 */
+	final void startRows(int rows) {
+		if(rows > height - rowsWritten) {
+			throw new IllegalStateException("Too many rows: " + (rowsWritten + rows) + " for a height of " + height);
+		}
+		rowsWritten += rows;
+	}
+	
+	/**
+	 * Writes bytes in the file, through the buffer
+	 * @param bytes the bytes to write
+	 * @param offset the position of the first byte to write
+	 * @param length the number of bytes to write
+	 * @throws IOException if the file can't be written
+	 */
+	final void put(byte[] bytes, int offset, int length) throws IOException {
+		while(length > 0) {
+			if(!buffer.hasRemaining()) {
+				flush();
+			}
+			
+			int n = Math.min(length, buffer.remaining());
+			buffer.put(bytes, offset, n);
+			offset += n;
+			length -= n;
+		}
+	}
+	
+	/**
+	 * Writes the content of the buffer in the file
+	 * @throws IOException if the file can't be written
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	/**
+	 * @return true if the height rows of the image were written
+	 */
+	public boolean isComplete() {
+		return rowsWritten == height;
+	}
+	
+	/**
+	 * Writes the remaining bytes and closes the file
+	 * @throws IOException if the file can't be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		}
+		finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.output;
+
+import java.io.File;
+import java.io.IOException;
+
+import ch.epfl.flamemaker.ifs.IFSAccumulator;
+
+/**
+ * Writes a binary PBM (P4) image, with eight pixels per byte
+ */
+public final class PBMWriter extends ChannelImageWriter {
+	// the packed pixels of a row, the first one on the most significant bit
+	private final byte[] row;
+	
+	/**
+	 * Creates a PBM file and writes its header
+	 * @param file the file to write, replaced if it exists
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @throws IllegalArgumentException if width or height is smaller or equal to zero
+	 * @throws IOException if the file can't be created
+	 */
+	public PBMWriter(File file, int width, int height) throws IOException {
+		super(file, width, height, "P4\n" + width + " " + height + "\n");
+		row = new byte[(width + 7) / 8];
+	}
+	
+	/**
+	 * Writes the next row of the image
+	 * @param pixels the pixels of the row, true for black
+	 * @throws IllegalArgumentException if the row hasn't width pixels
+	 * @throws IllegalStateException if the image would have more than height rows
+	 * @throws IOException if the file can't be written
+	 */
+	public void writeRow(boolean[] pixels) throws IOException {
+		if(pixels.length != width()) {
+			throw new IllegalArgumentException("Invalid row length: " + pixels.length);
+		}
+		startRows(1);
+		
+		for (int i = 0; i < row.length; i++) {
+			int bits = 0;
+			for (int j = 8 * i; j < 8 * i + 8; j++) {
+				bits <<= 1;
+				if(j < pixels.length && pixels[j]) {
+					bits |= 1;
+				}
+			}
+			row[i] = (byte) bits;
+		}
+		
+		put(row, 0, row.length);
+	}
+	
+	/**
+	 * Writes an IFSAccumulator in a PBM file, the hit squares being black
+	 * @param accumulator the accumulator to write
+	 * @param file the file to write, replaced if it exists
+	 * @throws IOException if the file can't be created or written
+	 */
+	public static void write(IFSAccumulator accumulator, File file) throws IOException {
+		boolean[] pixels = new boolean[accumulator.width()];
+		
+		PBMWriter writer = new PBMWriter(file, accumulator.width(), accumulator.height());
+		try {
+			for (int i = 0; i < accumulator.height(); i++) {
+				for (int j = 0; j < pixels.length; j++) {
+					pixels[j] = accumulator.isHit(j, i);
+				}
+				writer.writeRow(pixels);
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,344 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import ch.epfl.flamemaker.color.*;
+import ch.epfl.flamemaker.flame.ComputePool;
+import ch.epfl.flamemaker.flame.FlameAccumulator;
+
+/**
+ * Writes a PNG image, with 8-bit red, green and blue samples.
+ * The rows are grouped in blocks deflated concurrently in a pool, each block
+ * being an independent deflate stream ended by a sync flush,
+ * so that the blocks can be concatenated in a single zlib stream and written in order.
+ */
+public final class PNGWriter extends ChannelImageWriter implements RGBImageWriter {
+	private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+	private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+	
+	// about 256KB of filtered rows per block
+	private static final int BLOCK_BYTES = 1 << 18;
+	
+	// the filter type of the rows: each byte minus the same sample of the previous pixel
+	private static final int FILTER_SUB = 1;
+	
+	private final ForkJoinPool pool;
+	private final int rowBytes;
+	private final int rowsPerBlock;
+	
+	// the blocks being deflated, in the order of the rows, at most two per worker
+	private final Deque<Block> pending = new ArrayDeque<Block>();
+	private final int maxPending;
+	
+	// the filtered rows of the block being filled
+	private byte[] rows;
+	private int blockRows = 0;
+	private int rowsFiltered = 0;
+	private boolean firstBlock = true;
+	
+	// the Adler-32 checksum of the rows of the written blocks
+	private long adler = 1;
+	
+	private final CRC32 crc = new CRC32();
+	private final byte[] integer = new byte[4];
+	
+	/**
+	 * Creates a PNG file deflated in the shared pool and writes its header
+	 * @param file the file to write, replaced if it exists
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @throws IllegalArgumentException if width or height is smaller or equal to zero
+	 * @throws IOException if the file can't be created
+	 */
+	public PNGWriter(File file, int width, int height) throws IOException {
+		this(file, width, height, ComputePool.shared());
+	}
+	
+	/**
+	 * Creates a PNG file and writes its header
+	 * @param file the file to write, replaced if it exists
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @param pool the pool deflating the blocks of rows
+	 * @throws IllegalArgumentException if width or height is smaller or equal to zero,
+	 * or if a row has more than 2^31 - 2 bytes
+	 * @throws IOException if the file can't be created
+	 */
+	public PNGWriter(File file, int width, int height, ForkJoinPool pool) throws IOException {
+		super(file, width, height, SIGNATURE);
+		
+		if(width > (Integer.MAX_VALUE - 1) / 3) {
+			throw new IllegalArgumentException("Too wide image: " + width);
+		}
+		
+		this.pool = pool;
+		rowBytes = 3 * width + 1;
+		rowsPerBlock = Math.max(1, BLOCK_BYTES / rowBytes);
+		maxPending = 2 * pool.getParallelism();
+		rows = new byte[rowsPerBlock * rowBytes];
+		
+		// width, height, 8 bits per sample, truecolor, deflate, adaptive filtering, no interlace
+		byte[] header = new byte[13];
+		putInt(header, 0, width);
+		putInt(header, 4, height);
+		header[8] = 8;
+		header[9] = 2;
+		writeChunk(IHDR, header, 0, header.length);
+	}
+	
+	/**
+	 * Writes the next rows of the image. The rows are filtered in the calling thread,
+	 * and each full block is deflated in the pool.
+	 * @param rgb the red, green and blue bytes of the pixels, row by row
+	 * @param offset the position of the first byte in <strong>rgb</strong>
+	 * @param rowCount the number of rows to write
+	 * @throws IllegalStateException if the image would have more than height rows
+	 * @throws IOException if the file can't be written
+	 */
+	@Override
+	public void writeRows(byte[] rgb, int offset, int rowCount) throws IOException {
+		startRows(rowCount);
+		int samples = rowBytes - 1;
+		
+		for (int r = 0; r < rowCount; r++) {
+			int in = offset + r * samples;
+			int out = blockRows * rowBytes;
+			
+			rows[out++] = FILTER_SUB;
+			System.arraycopy(rgb, in, rows, out, 3);
+			for (int i = 3; i < samples; i++) {
+				rows[out + i] = (byte) (rgb[in + i] - rgb[in + i - 3]);
+			}
+			
+			blockRows++;
+			rowsFiltered++;
+			
+			boolean last = rowsFiltered == height();
+			if(blockRows == rowsPerBlock || last) {
+				submitBlock(last);
+			}
+		}
+	}
+	
+	/**
+	 * Deflates the block being filled in the pool, and writes the oldest blocks if too many are pending
+	 * @param last true if the block holds the last row of the image
+	 * @throws IOException if the file can't be written
+	 */
+	private void submitBlock(boolean last) throws IOException {
+		Block block = new Block(rows, blockRows * rowBytes, firstBlock, last);
+		pool.execute(block);
+		pending.addLast(block);
+		
+		firstBlock = false;
+		blockRows = 0;
+		rows = new byte[rows.length];
+		
+		while(pending.size() > maxPending || (last && !pending.isEmpty())) {
+			writeBlock(pending.removeFirst());
+		}
+		
+		if(last) {
+			rows = null;
+			
+			byte[] checksum = new byte[4];
+			putInt(checksum, 0, (int) adler);
+			writeChunk(IDAT, checksum, 0, checksum.length);
+			writeChunk(IEND, checksum, 0, 0);
+		}
+	}
+	
+	/**
+	 * Waits for a block to be deflated and writes it in an IDAT chunk
+	 * @param block the block to write
+	 * @throws IOException if the file can't be written
+	 */
+	private void writeBlock(Block block) throws IOException {
+		block.join();
+		adler = combineAdler32(adler, block.adler, block.rawLength);
+		writeChunk(IDAT, block.data, 0, block.length);
+	}
+	
+	/**
+	 * Writes a chunk: its length, type, data and CRC
+	 * @param type the type of the chunk
+	 * @param data the data of the chunk
+	 * @param offset the position of the first byte of data
+	 * @param length the number of bytes of data
+	 * @throws IOException if the file can't be written
+	 */
+	private void writeChunk(byte[] type, byte[] data, int offset, int length) throws IOException {
+		crc.reset();
+		crc.update(type);
+		crc.update(data, offset, length);
+		
+		putInt(integer, 0, length);
+		put(integer, 0, 4);
+		put(type, 0, type.length);
+		put(data, offset, length);
+		putInt(integer, 0, (int) crc.getValue());
+		put(integer, 0, 4);
+	}
+	
+	/**
+	 * Closes the file. The last row writes the remaining blocks and the end of the image, 
+	 * so if the image isn't complete, the pending blocks are abandoned and the file is invalid.
+	 * @throws IOException if the file can't be written
+	 */
+	@Override
+	public void close() throws IOException {
+		for (Block block : pending) {
+			block.cancel(false);
+		}
+		pending.clear();
+		
+		super.close();
+	}
+	
+	/**
+	 * Writes a FlameAccumulator in a PNG file, through a RenderPipeline: 
+	 * the bands are rendered and deflated in the shared pool while the previous ones are written
+	 * @param accumulator the accumulator to write
+	 * @param palette the palette to use for the colors
+	 * @param background the background color
+	 * @param file the file to write, replaced if it exists
+	 * @throws IOException if the file can't be created or written
+	 */
+	public static void write(FlameAccumulator accumulator, Palette palette, Color background, File file) throws IOException {
+		PNGWriter writer = new PNGWriter(file, accumulator.width(), accumulator.height());
+		try {
+			RenderPipeline.render(accumulator, palette, background, writer);
+		}
+		finally {
+			writer.close();
+		}
+	}
+	
+	/**
+	 * Writes an integer in big-endian order
+	 * @param bytes the array receiving the integer
+	 * @param offset the position of the first byte
+	 * @param value the integer
+	 */
+	private static void putInt(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) (value >>> 24);
+		bytes[offset + 1] = (byte) (value >>> 16);
+		bytes[offset + 2] = (byte) (value >>> 8);
+		bytes[offset + 3] = (byte) value;
+	}
+	
+	/**
+	 * Computes the Adler-32 checksum of two sequences of bytes from their checksums, as zlib's adler32_combine
+	 * @param adler1 the checksum of the first sequence
+	 * @param adler2 the checksum of the second sequence
+	 * @param length2 the length of the second sequence
+	 * @return the checksum of the concatenation of the two sequences
+	 */
+	private static long combineAdler32(long adler1, long adler2, long length2) {
+		final long base = 65521;
+		
+		long remainder = length2 % base;
+		long sum1 = adler1 & 0xffff;
+		long sum2 = (remainder * sum1) % base;
+		sum1 += (adler2 & 0xffff) + base - 1;
+		sum2 += ((adler1 >>> 16) & 0xffff) + ((adler2 >>> 16) & 0xffff) + base - remainder;
+		
+		if(sum1 >= base) {
+			sum1 -= base;
+		}
+		if(sum1 >= base) {
+			sum1 -= base;
+		}
+		if(sum2 >= 2 * base) {
+			sum2 -= 2 * base;
+		}
+		if(sum2 >= base) {
+			sum2 -= base;
+		}
+		
+		return sum1 | (sum2 << 16);
+	}
+	
+	/**
+	 * A block of filtered rows deflated in its own raw deflate stream
+	 */
+	@SuppressWarnings("serial")
+	private static final class Block extends RecursiveAction {
+		private final byte[] raw;
+		private final int rawLength;
+		private final boolean first;
+		private final boolean last;
+		
+		// the deflated block, and the checksum of the rows
+		private byte[] data;
+		private int length;
+		private long adler;
+		
+		/**
+		 * Creates a Block
+		 * @param raw the filtered rows
+		 * @param rawLength the number of bytes of the rows
+		 * @param first true if the block starts the zlib stream, and is preceded by its header
+		 * @param last true if the block ends the deflate stream, instead of a sync flush
+		 */
+		Block(byte[] raw, int rawLength, boolean first, boolean last) {
+			this.raw = raw;
+			this.rawLength = rawLength;
+			this.first = first;
+			this.last = last;
+		}
+		
+		@Override
+		protected void compute() {
+			Adler32 checksum = new Adler32();
+			checksum.update(raw, 0, rawLength);
+			adler = checksum.getValue();
+			
+			Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			deflater.setInput(raw, 0, rawLength);
+			if(last) {
+				deflater.finish();
+			}
+			
+			byte[] out = new byte[rawLength / 2 + 64];
+			int n = 0;
+			if(first) {
+				// zlib header: deflate with a 32K window, default compression
+				out[n++] = 0x78;
+				out[n++] = (byte) 0x9c;
+			}
+			
+			// a sync flush is complete when it doesn't fill the output
+			boolean done = false;
+			while(!done) {
+				if(n == out.length) {
+					out = Arrays.copyOf(out, 2 * out.length);
+				}
+				
+				n += deflater.deflate(out, n, out.length - n, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+				done = last ? deflater.finished() : n < out.length;
+			}
+			deflater.end();
+			
+			data = out;
+			length = n;
+		}
+	}
+}
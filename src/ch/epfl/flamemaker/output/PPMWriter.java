@@ -0,0 +1,62 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.output;
+
+import java.io.File;
+import java.io.IOException;
+
+import ch.epfl.flamemaker.color.*;
+import ch.epfl.flamemaker.flame.FlameAccumulator;
+
+/**
+ * Writes a binary PPM (P6) image, with 8-bit red, green and blue bytes
+ */
+public final class PPMWriter extends ChannelImageWriter implements RGBImageWriter {
+	/**
+	 * Creates a PPM file and writes its header
+	 * @param file the file to write, replaced if it exists
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @throws IllegalArgumentException if width or height is smaller or equal to zero
+	 * @throws IOException if the file can't be created
+	 */
+	public PPMWriter(File file, int width, int height) throws IOException {
+		super(file, width, height, "P6\n" + width + " " + height + "\n255\n");
+	}
+	
+	/**
+	 * Writes the next rows of the image
+	 * @param rgb the red, green and blue bytes of the pixels, row by row
+	 * @param offset the position of the first byte in <strong>rgb</strong>
+	 * @param rows the number of rows to write
+	 * @throws IllegalStateException if the image would have more than height rows
+	 * @throws IOException if the file can't be written
+	 */
+	@Override
+	public void writeRows(byte[] rgb, int offset, int rows) throws IOException {
+		startRows(rows);
+		put(rgb, offset, 3 * width() * rows);
+	}
+	
+	/**
+	 * Writes a FlameAccumulator in a PPM file, through a RenderPipeline: 
+	 * the bands are rendered in the shared pool while the previous ones are written
+	 * @param accumulator the accumulator to write
+	 * @param palette the palette to use for the colors
+	 * @param background the background color
+	 * @param file the file to write, replaced if it exists
+	 * @throws IOException if the file can't be created or written
+	 */
+	public static void write(FlameAccumulator accumulator, Palette palette, Color background, File file) throws IOException {
+		PPMWriter writer = new PPMWriter(file, accumulator.width(), accumulator.height());
+		try {
+			RenderPipeline.render(accumulator, palette, background, writer);
+		}
+		finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * An image file written row by row from 8-bit red, green and blue bytes
+ */
+public interface RGBImageWriter extends Closeable {
+	
+	/**
+	 * @return the width of the image
+	 */
+	public int width();
+	
+	/**
+	 * @return the height of the image
+	 */
+	public int height();
+	
+	/**
+	 * Writes the next rows of the image
+	 * @param rgb the red, green and blue bytes of the pixels, row by row
+	 * @param offset the position of the first byte in <strong>rgb</strong>
+	 * @param rows the number of rows to write
+	 * @throws IllegalStateException if the image would have more than height rows
+	 * @throws IOException if the file can't be written
+	 */
+	public void writeRows(byte[] rgb, int offset, int rows) throws IOException;
+}
@@ -0,0 +1,140 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.output;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import ch.epfl.flamemaker.color.*;
+import ch.epfl.flamemaker.flame.ComputePool;
+import ch.epfl.flamemaker.flame.FlameAccumulator;
+
+/**
+ * Streams a FlameAccumulator to an image file by bands of rows.
+ * The bands are tone mapped and encoded in a pool while the calling thread writes 
+ * the previous ones in order, so that the processors and the disk are busy at the same time. 
+ * At most a fixed number of bands are in flight, their buffers being reused: 
+ * the memory needed beyond the accumulator is a few bands.
+ */
+public final class RenderPipeline {
+	/**
+	 * The number of rows of a band when none is given
+	 */
+	public static final int DEFAULT_ROWS_PER_BAND = 64;
+	
+	private RenderPipeline() {}
+	
+	/**
+	 * Renders a FlameAccumulator to an image file, with bands of DEFAULT_ROWS_PER_BAND rows 
+	 * rendered in the shared pool, two per worker in flight
+	 * @param accumulator the accumulator to render
+	 * @param palette the palette to use for the colors
+	 * @param background the background color
+	 * @param writer the image file, not closed
+	 * @throws IllegalArgumentException if the image and the accumulator haven't the same size
+	 * @throws IOException if the file can't be written
+	 */
+	public static void render(FlameAccumulator accumulator, Palette palette, Color background, RGBImageWriter writer) throws IOException {
+		ForkJoinPool pool = ComputePool.shared();
+		render(accumulator, palette, background, writer, pool, DEFAULT_ROWS_PER_BAND, 2 * pool.getParallelism());
+	}
+	
+	/**
+	 * Renders a FlameAccumulator to an image file
+	 * @param accumulator the accumulator to render
+	 * @param palette the palette to use for the colors
+	 * @param background the background color
+	 * @param writer the image file, not closed
+	 * @param pool the pool rendering the bands
+	 * @param rowsPerBand the number of rows of a band
+	 * @param bandsInFlight the largest number of bands rendered or waiting to be written
+	 * @throws IllegalArgumentException if the image and the accumulator haven't the same size, 
+	 * or if <strong>rowsPerBand</strong> or <strong>bandsInFlight</strong> is smaller or equal to zero
+	 * @throws IOException if the file can't be written
+	 */
+	public static void render(FlameAccumulator accumulator, Palette palette, Color background, RGBImageWriter writer, 
+			ForkJoinPool pool, int rowsPerBand, int bandsInFlight) throws IOException {
+		if(writer.width() != accumulator.width() || writer.height() != accumulator.height()) {
+			throw new IllegalArgumentException("Image and accumulator of different sizes");
+		}
+		if(rowsPerBand <= 0 || bandsInFlight <= 0) {
+			throw new IllegalArgumentException("Negative or null band size or count");
+		}
+		
+		int height = accumulator.height();
+		int bandBytes = 3 * accumulator.width() * Math.min(rowsPerBand, height);
+		
+		// the bands in flight, in the order of the rows, and the buffers of the written ones
+		Deque<Band> bands = new ArrayDeque<Band>();
+		Deque<byte[]> buffers = new ArrayDeque<byte[]>();
+		
+		try {
+			int first = 0;
+			while(first < height || !bands.isEmpty()) {
+				// fills the pipeline
+				while(first < height && bands.size() < bandsInFlight) {
+					byte[] buffer = buffers.isEmpty() ? new byte[bandBytes] : buffers.removeFirst();
+					int last = Math.min(first + rowsPerBand, height);
+					
+					Band band = new Band(accumulator, palette, background, buffer, first, last);
+					pool.execute(band);
+					bands.addLast(band);
+					first = last;
+				}
+				
+				// writes the oldest band
+				Band band = bands.removeFirst();
+				band.join();
+				writer.writeRows(band.rgb, 0, band.lastRow - band.firstRow);
+				buffers.addLast(band.rgb);
+			}
+		}
+		finally {
+			for (Band band : bands) {
+				band.cancel(false);
+			}
+		}
+	}
+	
+	/**
+	 * The rendering of a band of rows in its buffer
+	 */
+	@SuppressWarnings("serial")
+	private static final class Band extends RecursiveAction {
+		private final FlameAccumulator accumulator;
+		private final Palette palette;
+		private final Color background;
+		private final byte[] rgb;
+		private final int firstRow;
+		private final int lastRow;
+		
+		/**
+		 * Creates a Band
+		 * @param accumulator the accumulator to render
+		 * @param palette the palette to use for the colors
+		 * @param background the background color
+		 * @param rgb the buffer receiving the band
+		 * @param firstRow the first row of the band
+		 * @param lastRow the row after the last one of the band
+		 */
+		Band(FlameAccumulator accumulator, Palette palette, Color background, byte[] rgb, int firstRow, int lastRow) {
+			this.accumulator = accumulator;
+			this.palette = palette;
+			this.background = background;
+			this.rgb = rgb;
+			this.firstRow = firstRow;
+			this.lastRow = lastRow;
+		}
+		
+		@Override
+		protected void compute() {
+			accumulator.renderInto(palette, background, rgb, firstRow, lastRow);
+		}
+	}
+}
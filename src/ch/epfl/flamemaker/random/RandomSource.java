@@ -0,0 +1,31 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.random;
+
+/**
+ * A source of random numbers for the chaos game, that can be split into independent streams
+ */
+public interface RandomSource {
+	/**
+	 * @return a uniformly distributed random number in [0,1)
+	 */
+	public double nextDouble();
+	
+	/**
+	 * Returns a uniformly distributed random number in [0,bound)
+	 * @param bound the bound of the random number
+	 * @throws IllegalArgumentException if the bound is smaller or equal to zero
+	 * @return the random number
+	 */
+	public int nextInt(int bound);
+	
+	/**
+	 * Creates a new RandomSource, whose numbers are independent from the ones of this RandomSource.
+	 * Used to give its own stream to each chain of a parallel computation.
+	 * @return the new RandomSource
+	 */
+	public RandomSource split();
+}
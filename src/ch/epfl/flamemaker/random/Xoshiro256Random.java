@@ -0,0 +1,143 @@
+/*
+ *	Author:      Timothée Lottaz & Brandon Le Sann
+ *	Date:        17 oct. 2026
+ */
+
+package ch.epfl.flamemaker.random;
+
+/**
+ * A RandomSource using the xoshiro256** generator, with a period of 2^256 - 1.
+ * Not thread-safe: each thread must use its own RandomSource, obtained by split().
+ */
+public final class Xoshiro256Random implements RandomSource {
+	// the jump polynomial, equivalent to 2^128 calls to nextLong()
+	private static final long[] JUMP = {0x180ec6d33cfd0abaL, 0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL, 0x39abdc4529b1661cL};
+	
+	private long s0, s1, s2, s3;
+	
+	/**
+	 * Creates a Xoshiro256Random, its state being initialised from the seed with SplitMix64
+	 * @param seed the seed
+	 */
+	public Xoshiro256Random(long seed) {
+		long x = seed;
+		
+		x += 0x9e3779b97f4a7c15L;
+		s0 = mix(x);
+		x += 0x9e3779b97f4a7c15L;
+		s1 = mix(x);
+		x += 0x9e3779b97f4a7c15L;
+		s2 = mix(x);
+		x += 0x9e3779b97f4a7c15L;
+		s3 = mix(x);
+	}
+	
+	/**
+	 * Creates a Xoshiro256Random with a seed depending on the time
+	 */
+	public Xoshiro256Random() {
+		this(System.nanoTime());
+	}
+	
+	/**
+	 * Copy constructor
+	 * @param that the Xoshiro256Random to copy
+	 */
+	private Xoshiro256Random(Xoshiro256Random that) {
+		s0 = that.s0;
+		s1 = that.s1;
+		s2 = that.s2;
+		s3 = that.s3;
+	}
+	
+	/**
+	 * The SplitMix64 output function
+	 * @param z the value to mix
+	 * @return the mixed value
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+	
+	/**
+	 * @return the next 64 random bits
+	 */
+	public long nextLong() {
+		long result = Long.rotateLeft(s1 * 5, 7) * 9;
+		long t = s1 << 17;
+		
+		s2 ^= s0;
+		s3 ^= s1;
+		s1 ^= s2;
+		s0 ^= s3;
+		s2 ^= t;
+		s3 = Long.rotateLeft(s3, 45);
+		
+		return result;
+	}
+	
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+	
+	@Override
+	public int nextInt(int bound) {
+		if(bound <= 0) {
+			throw new IllegalArgumentException("Negative or null bound");
+		}
+		
+		// Lemire's multiply and shift, rejecting the few values that would bias the result
+		long m = (nextLong() >>> 32) * bound;
+		long low = m & 0xffffffffL;
+		
+		if(low < bound) {
+			long threshold = (0x100000000L - bound) % bound;
+			
+			while(low < threshold) {
+				m = (nextLong() >>> 32) * bound;
+				low = m & 0xffffffffL;
+			}
+		}
+		
+		return (int)(m >>> 32);
+	}
+	
+	/**
+	 * Returns a copy of this generator, then advances this generator by 2^128 numbers,
+	 * so that the two streams never overlap.
+	 */
+	@Override
+	public RandomSource split() {
+		Xoshiro256Random copy = new Xoshiro256Random(this);
+		jump();
+		
+		return copy;
+	}
+	
+	/**
+	 * Advances the generator by 2^128 numbers
+	 */
+	private void jump() {
+		long t0 = 0, t1 = 0, t2 = 0, t3 = 0;
+		
+		for (long jump : JUMP) {
+			for (int b = 0; b < 64; b++) {
+				if((jump & (1L << b)) != 0) {
+					t0 ^= s0;
+					t1 ^= s1;
+					t2 ^= s2;
+					t3 ^= s3;
+				}
+				nextLong();
+			}
+		}
+		
+		s0 = t0;
+		s1 = t1;
+		s2 = t2;
+		s3 = t3;
+	}
+}